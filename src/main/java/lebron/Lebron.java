@@ -1,7 +1,12 @@
 package lebron;
 
+import lebron.storage.FlushPolicy;
 import lebron.storage.Storage;
+import lebron.storage.TaskFileWatcher;
+import lebron.storage.TaskStore;
+import lebron.data.TaskEngine;
 import lebron.data.TaskList;
+import lebron.data.FreeTimeQuery;
 import lebron.data.FreeTimeSlot;
 import lebron.ui.Ui;
 import lebron.parser.Parser;
@@ -24,8 +29,12 @@ import java.util.List;
  * @version 1.0
  */
 public class Lebron {
-    private final Storage storage;
-    private TaskList tasks;
+    private static final FlushPolicy FLUSH_POLICY = FlushPolicy.everyMillis(500);
+    private static final int RANK_RESULT_LIMIT = 10;
+
+    private final TaskStore storage;
+    private final TaskFileWatcher watcher;
+    private final TaskEngine engine;
     private final Ui ui;
 
     /**
@@ -34,17 +43,23 @@ public class Lebron {
      * If there's an issue loading your saved tasks (maybe the file is corrupted or missing),
      * don't worry - we'll start fresh with an empty task list and let you know what happened.
      * 
-     * @param filePath the path to the file where your tasks are stored
+     * @param filePath the path to the file (or segment folder) where your tasks are stored
      */
     public Lebron(String filePath) {
         ui = new Ui();
-        storage = new Storage(filePath);
+        storage = Storage.open(filePath, FLUSH_POLICY);
+        TaskList tasks;
         try {
             tasks = new TaskList(storage.load());
         } catch (Exception e) {
             ui.showError("Error loading tasks: " + e.getMessage());
             tasks = new TaskList();
         }
+        engine = new TaskEngine(tasks);
+        watcher = (storage instanceof Storage) ? new TaskFileWatcher((Storage) storage) : null;
+        if (watcher != null) {
+            watcher.start();
+        }
     }
 
     /**
@@ -53,6 +68,10 @@ public class Lebron {
      * This method handles the interactive conversation with you, processing each command
      * and keeping things running smoothly until you decide to say goodbye. It's designed
      * to be forgiving - if something goes wrong, we'll catch it and keep going.
+     * 
+     * Reading and parsing commands and showing the results happen here, but every look at
+     * or change to the task list is handed to a {@link TaskEngine}, which runs them one at a
+     * time on its own thread. Listing just shows the engine's latest snapshot.
      */
     public void run() {
         ui.showWelcome();
@@ -61,6 +80,7 @@ public class Lebron {
         while (!isExit) {
             try {
                 String input = ui.readCommand();
+                applyExternalChanges();
                 Parser.Command command = Parser.parse(input);
                 
                 switch (command.getType()) {
@@ -91,6 +111,9 @@ public class Lebron {
                     case FIND:
                         handleFind(command.getArgument());
                         break;
+                    case RANK:
+                        handleRank(command.getArgument());
+                        break;
                     case FREETIME:
                         handleFreeTime(command.getArgument());
                         break;
@@ -103,12 +126,39 @@ public class Lebron {
             }
         }
         
+        stopWatching();
+        engine.call(list -> {
+            storage.saveChanges(list);
+            return null;
+        });
+        engine.close();
+        storage.close();
         ui.showGoodbye();
         ui.close();
     }
 
+    /**
+     * Brings the task list up to date with any changes made to the data file elsewhere,
+     * e.g. by a sync tool, before the next command looks at it.
+     */
+    private void applyExternalChanges() {
+        if (watcher == null) {
+            return;
+        }
+        int changeCount = engine.call(watcher::applyExternalChanges);
+        if (changeCount > 0) {
+            ui.showExternalChanges(changeCount);
+        }
+    }
+
+    private void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
     private void handleList() {
-        ui.showTaskList(tasks.getAllTasks());
+        ui.showTaskList(engine.snapshot());
     }
 
     private void handleTodo(String description) {
@@ -117,10 +167,19 @@ public class Lebron {
             return;
         }
         
-        Todo todo = new Todo(description);
-        tasks.add(todo);
-        saveToStorage();
-        ui.showTaskAdded(todo, tasks.size());
+        addTask(new Todo(description));
+    }
+
+    /**
+     * Adds a task on the engine's writer thread, records it in storage, and shows it.
+     */
+    private void addTask(Task task) {
+        engine.call(list -> {
+            list.add(task);
+            storage.recordAdded(task);
+            return task;
+        });
+        ui.showTaskAdded(task, engine.snapshot().size());
     }
 
     private void handleDeadline(String input) {
@@ -145,10 +204,7 @@ public class Lebron {
             }
             
             try {
-                Deadline deadline = new Deadline(description, by);
-                tasks.add(deadline);
-                saveToStorage();
-                ui.showTaskAdded(deadline, tasks.size());
+                addTask(new Deadline(description, by));
             } catch (IllegalArgumentException e) {
                 ui.showError(e.getMessage());
             }
@@ -187,10 +243,7 @@ public class Lebron {
                 }
                 
                 try {
-                    Event event = new Event(description, from, to);
-                    tasks.add(event);
-                    saveToStorage();
-                    ui.showTaskAdded(event, tasks.size());
+                    addTask(new Event(description, from, to));
                 } catch (IllegalArgumentException e) {
                     ui.showError(e.getMessage());
                 }
@@ -210,11 +263,9 @@ public class Lebron {
         
         try {
             int index = Integer.parseInt(indexStr.trim()) - 1;
-            Task task = tasks.get(index);
+            Task task = markTask(index, true);
             
             if (task != null) {
-                tasks.markTask(index, true);
-                saveToStorage();
                 ui.showTaskMarked(task);
             } else {
                 ui.showError("I don't have a task with that number.\\nUse 'list' to see your tasks first.");
@@ -232,11 +283,9 @@ public class Lebron {
         
         try {
             int index = Integer.parseInt(indexStr.trim()) - 1;
-            Task task = tasks.get(index);
+            Task task = markTask(index, false);
             
             if (task != null) {
-                tasks.markTask(index, false);
-                saveToStorage();
                 ui.showTaskUnmarked(task);
             } else {
                 ui.showError("I don't have a task with that number.\\nUse 'list' to see your tasks first.");
@@ -246,6 +295,22 @@ public class Lebron {
         }
     }
 
+    /**
+     * Marks a task on the engine's writer thread and records it in storage.
+     * 
+     * @return the task, or null if there is no task at that position
+     */
+    private Task markTask(int index, boolean isDone) {
+        return engine.call(list -> {
+            Task task = list.get(index);
+            if (task != null) {
+                list.markTask(index, isDone);
+                storage.recordMarked(task);
+            }
+            return task;
+        });
+    }
+
     private void handleDelete(String indexStr) {
         if (indexStr.trim().isEmpty()) {
             ui.showError("Please specify which task to delete.\\nUse: delete <task number>");
@@ -254,11 +319,16 @@ public class Lebron {
         
         try {
             int index = Integer.parseInt(indexStr.trim()) - 1;
-            Task deletedTask = tasks.delete(index);
+            Task deletedTask = engine.call(list -> {
+                Task task = list.delete(index);
+                if (task != null) {
+                    storage.recordDeleted(task);
+                }
+                return task;
+            });
             
             if (deletedTask != null) {
-                saveToStorage();
-                ui.showTaskDeleted(deletedTask, tasks.size());
+                ui.showTaskDeleted(deletedTask, engine.snapshot().size());
             } else {
                 ui.showError("I don't have a task with that number.\\nUse 'list' to see your tasks first.");
             }
@@ -273,36 +343,50 @@ public class Lebron {
             return;
         }
         
-        List<Task> matchingTasks = tasks.findTasks(keyword);
+        // "find ~word" asks for a typo-tolerant search,
+        // "find /regex/" and "find a*b" for a pattern search
+        String trimmedKeyword = keyword.trim();
+        List<Task> matchingTasks;
+        try {
+            if (trimmedKeyword.startsWith("~") && trimmedKeyword.length() > 1) {
+                matchingTasks = engine.call(list -> list.findSimilarTasks(trimmedKeyword.substring(1)));
+            } else if (TaskList.isPattern(trimmedKeyword)) {
+                matchingTasks = engine.call(list -> list.findTasksMatching(trimmedKeyword));
+            } else {
+                matchingTasks = engine.call(list -> list.findTasks(keyword));
+            }
+        } catch (IllegalArgumentException e) {
+            ui.showError(e.getMessage());
+            return;
+        }
         ui.showFindResults(matchingTasks, keyword);
     }
 
-    private void handleFreeTime(String hoursStr) {
-        if (hoursStr.trim().isEmpty()) {
-            ui.showError("Please specify how many hours you need.\\nUse: freetime <hours>");
+    private void handleRank(String query) {
+        if (query.trim().isEmpty()) {
+            ui.showError("Please specify some words to search for.\\nUse: rank <words>");
+            return;
+        }
+
+        List<Task> bestTasks = engine.call(list -> list.rankTasks(query, RANK_RESULT_LIMIT));
+        ui.showRankedResults(bestTasks, query);
+    }
+
+    private void handleFreeTime(String argument) {
+        if (argument.trim().isEmpty()) {
+            ui.showError("Please specify how much time you need.\\nUse: freetime <duration> [/count <slots>] [/days <days>] [/hours <start>-<end>]");
             return;
         }
         
         try {
-            int hoursNeeded = Integer.parseInt(hoursStr.trim());
-            
-            if (hoursNeeded <= 0) {
-                ui.showError("Please specify a positive number of hours.");
-                return;
-            }
-            
-            FreeTimeSlot freeSlot = tasks.findNextFreeTime(hoursNeeded);
-            ui.showFreeTimeResult(freeSlot, hoursNeeded);
-            
-        } catch (NumberFormatException e) {
-            ui.showError("That's not a valid number of hours.\\nPlease provide a number (e.g., freetime 4)");
+            FreeTimeQuery query = FreeTimeQuery.parse(argument);
+            List<FreeTimeSlot> freeSlots = engine.call(list -> list.findFreeTimes(query));
+            ui.showFreeTimeResults(freeSlots, query);
+        } catch (IllegalArgumentException e) {
+            ui.showError(e.getMessage() + "\\nPlease use a format like: freetime 90m /count 5 /days 60");
         }
     }
 
-    private void saveToStorage() {
-        storage.save(tasks.getAllTasks());
-    }
-
     /**
      * The entry point for the Lebron chatbot application.
      * 
@@ -0,0 +1,124 @@
+package lebron.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A BK-tree of words, for finding every word within a few typos of a query.
+ *
+ * Each child hangs off its parent at the edit distance between the two words. Because
+ * edit distance obeys the triangle inequality, a search for words within {@code k} of the
+ * query only has to visit the children whose distance from the current word is within
+ * {@code k} of the query's own distance from it. The rest of the tree is skipped, so
+ * most of the vocabulary is never compared at all.
+ *
+ * Words can't be taken out again; callers filter out words that have gone stale and
+ * build a fresh tree once there are too many of them.
+ */
+class BkTree {
+    private Node root;
+    private int size;
+
+    private static class Node {
+        private final String word;
+        private Node[] children = new Node[0];
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    /**
+     * Adds a word, unless it is already there.
+     *
+     * @param word the word to add
+     */
+    void add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return;
+            }
+            if (distance >= node.children.length) {
+                node.children = Arrays.copyOf(node.children, distance + 1);
+            }
+            if (node.children[distance] == null) {
+                node.children[distance] = new Node(word);
+                size++;
+                return;
+            }
+            node = node.children[distance];
+        }
+    }
+
+    /**
+     * Tells you how many words have been added.
+     *
+     * @return the number of distinct words in the tree
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds every word within the given edit distance of the query.
+     *
+     * @param query the (possibly misspelled) word
+     * @param maxDistance how many single-character insertions, deletions or substitutions
+     *                    are allowed
+     * @return the matching words, in no particular order
+     */
+    List<String> find(String query, int maxDistance) {
+        List<String> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = distance(query, node.word);
+            if (distance <= maxDistance) {
+                matches.add(node.word);
+            }
+            int from = Math.max(1, distance - maxDistance);
+            int to = Math.min(node.children.length - 1, distance + maxDistance);
+            for (int i = from; i <= to; i++) {
+                if (node.children[i] != null) {
+                    pending.add(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Works out the Levenshtein distance between two words, keeping just two rows.
+     */
+    static int distance(String word1, String word2) {
+        int[] previous = new int[word2.length() + 1];
+        int[] current = new int[word2.length() + 1];
+        for (int j = 0; j <= word2.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= word1.length(); i++) {
+            current[0] = i;
+            char c = word1.charAt(i - 1);
+            for (int j = 1; j <= word2.length(); j++) {
+                int substitution = previous[j - 1] + ((c == word2.charAt(j - 1)) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[word2.length()];
+    }
+}
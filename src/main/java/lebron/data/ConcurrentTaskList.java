@@ -0,0 +1,148 @@
+package lebron.data;
+
+import java.util.List;
+import lebron.task.Task;
+
+/**
+ * A {@link TaskList} that many threads can use at once, say a GUI refreshing its list while
+ * a server thread adds tasks.
+ *
+ * Changes are made one at a time: each one locks the list, changes the {@code TaskList}
+ * inside it, and then publishes a new {@link TaskSnapshot}. Reads never lock anything.
+ * They just pick up the latest snapshot, which can't change under them, so reading scales
+ * across cores and a reader can never hold up a writer. Publishing a snapshot takes
+ * O(log n), since it shares all but a handful of nodes with the one before.
+ *
+ * The searches that use the indexes inside {@code TaskList}, like ranking or looking for
+ * free time, read state that changes along with the list, so those wait for any change in
+ * progress to finish.
+ */
+public class ConcurrentTaskList {
+    private final TaskList tasks;
+    private volatile TaskSnapshot current;
+
+    /**
+     * Creates a new, empty list.
+     */
+    public ConcurrentTaskList() {
+        this.tasks = new TaskList();
+        this.current = this.tasks.getSnapshot();
+    }
+
+    /**
+     * Creates a list from existing tasks.
+     *
+     * @param tasks the tasks to start with (can be null)
+     */
+    public ConcurrentTaskList(List<Task> tasks) {
+        this.tasks = new TaskList(tasks);
+        this.current = this.tasks.getSnapshot();
+    }
+
+    /**
+     * Gets the tasks as they are right now. The snapshot won't change, however the list
+     * changes afterwards.
+     *
+     * @return the latest snapshot
+     */
+    public TaskSnapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Tells you how many tasks there are right now.
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return current.size();
+    }
+
+    /**
+     * Gets a task from the latest snapshot.
+     *
+     * @param index the position of the task
+     * @return the task at that position, or null if index is invalid
+     */
+    public Task get(int index) {
+        TaskSnapshot snapshot = current;
+        return (index >= 0 && index < snapshot.size()) ? snapshot.get(index) : null;
+    }
+
+    /**
+     * Searches the latest snapshot, without locking. See {@link TaskSnapshot#findTasks(String)}.
+     *
+     * @param keyword what to search for
+     * @return the matching tasks, in list order
+     */
+    public List<Task> findTasks(String keyword) {
+        return current.findTasks(keyword);
+    }
+
+    /**
+     * Adds a task to the end of the list.
+     *
+     * @param task the task to add
+     */
+    public synchronized void add(Task task) {
+        tasks.add(task);
+        current = tasks.getSnapshot();
+    }
+
+    /**
+     * Removes a task.
+     *
+     * @param index the position of the task to remove
+     * @return the removed task, or null if the index is out of bounds
+     */
+    public synchronized Task delete(int index) {
+        Task task = tasks.delete(index);
+        current = tasks.getSnapshot();
+        return task;
+    }
+
+    /**
+     * Puts a different task in place of the one at the given position.
+     *
+     * @param index the position of the task to replace
+     * @param task the task to put there
+     * @return the task that was replaced, or null if the index is out of bounds
+     */
+    public synchronized Task replace(int index, Task task) {
+        Task oldTask = tasks.replace(index, task);
+        current = tasks.getSnapshot();
+        return oldTask;
+    }
+
+    /**
+     * Marks a task as done or not done.
+     *
+     * @param index which task to mark
+     * @param isDone true to mark as done, false to mark as not done
+     */
+    public synchronized void markTask(int index, boolean isDone) {
+        tasks.markTask(index, isDone);
+        current = tasks.getSnapshot();
+    }
+
+    /**
+     * Ranks tasks by how well they match, like {@link TaskList#rankTasks(String, int)}.
+     *
+     * @param query the words to search for
+     * @param limit the most tasks to return
+     * @return up to limit matching tasks, best first
+     */
+    public synchronized List<Task> rankTasks(String query, int limit) {
+        return tasks.rankTasks(query, limit);
+    }
+
+    /**
+     * Finds free slots in the schedule, like {@link TaskList#findFreeTimes(FreeTimeQuery)}.
+     *
+     * @param query how long the slots must be, how many you want, and when to look
+     * @return up to the requested number of free slots, earliest first
+     */
+    public synchronized List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query) {
+        return tasks.findFreeTimes(query);
+    }
+}
@@ -0,0 +1,137 @@
+package lebron.data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers recent free-time results, so asking again for the same thing is instant.
+ *
+ * A result depends on the query and on the first whole minute it may use (nothing before
+ * "now" is ever free), so that is what results are filed under. When the clock moves on to the
+ * next minute every result is out of date and the cache starts over. The owner calls
+ * {@link #invalidate()} whenever an event is added, removed or marked, since any of those
+ * might change what is free.
+ *
+ * Only the most recently used results are kept, and hit and miss counts are kept so you
+ * can tell whether the cache is earning its keep.
+ */
+class FreeTimeCache {
+    private static final int CAPACITY = 32;
+
+    private final Map<Key, List<FreeTimeSlot>> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<FreeTimeSlot>> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private LocalDateTime currentMinute;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * What a result is filed under: the query, the first minute it may use, and the day
+     * the search started on (which is where the number of days is counted from).
+     */
+    private static class Key {
+        private final FreeTimeQuery query;
+        private final LocalDateTime minute;
+        private final LocalDate day;
+
+        Key(FreeTimeQuery query, LocalDateTime minute, LocalDate day) {
+            this.query = query;
+            this.minute = minute;
+            this.day = day;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return query.equals(key.query) && minute.equals(key.minute) && day.equals(key.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, minute, day);
+        }
+    }
+
+    /**
+     * Looks up a result.
+     *
+     * @param query the query
+     * @param searchStart when the search starts
+     * @return the remembered slots, or null if there are none
+     */
+    List<FreeTimeSlot> get(FreeTimeQuery query, LocalDateTime searchStart) {
+        LocalDateTime minute = minuteOf(searchStart);
+        if (!minute.equals(currentMinute)) {
+            results.clear();
+            currentMinute = minute;
+        }
+        List<FreeTimeSlot> slots = results.get(new Key(query, minute, searchStart.toLocalDate()));
+        if (slots != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return slots;
+    }
+
+    /**
+     * Remembers a result.
+     *
+     * @param query the query
+     * @param searchStart when the search started
+     * @param slots the slots that were found
+     * @return the remembered (unmodifiable) slots
+     */
+    List<FreeTimeSlot> put(FreeTimeQuery query, LocalDateTime searchStart, List<FreeTimeSlot> slots) {
+        List<FreeTimeSlot> remembered = List.copyOf(slots);
+        LocalDateTime minute = minuteOf(searchStart);
+        if (minute.equals(currentMinute)) {
+            results.put(new Key(query, minute, searchStart.toLocalDate()), remembered);
+        }
+        return remembered;
+    }
+
+    /**
+     * Forgets every result, because the schedule changed.
+     */
+    void invalidate() {
+        results.clear();
+    }
+
+    /**
+     * Tells you how many lookups found a remembered result.
+     *
+     * @return the number of hits
+     */
+    long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Tells you how many lookups had to be searched for.
+     *
+     * @return the number of misses
+     */
+    long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the first whole minute a search starting at the given time may use.
+     */
+    private static LocalDateTime minuteOf(LocalDateTime searchStart) {
+        LocalDateTime minute = searchStart.truncatedTo(ChronoUnit.MINUTES);
+        return minute.equals(searchStart) ? minute : minute.plusMinutes(1);
+    }
+}
@@ -0,0 +1,209 @@
+package lebron.data;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Describes what kind of free time you're looking for: how long, how many slots, how far
+ * ahead, and which hours of the day count as working hours.
+ *
+ * Most people will get one from {@link #parse(String)}, which understands what you type
+ * after {@code freetime}, like {@code 90m /count 5 /days 60 /hours 8-18}.
+ */
+public class FreeTimeQuery {
+    /** Working hours used unless you say otherwise. */
+    public static final LocalTime DEFAULT_DAY_START = LocalTime.of(9, 0);
+    public static final LocalTime DEFAULT_DAY_END = LocalTime.of(21, 0);
+    /** How many days ahead to look unless you say otherwise. */
+    public static final int DEFAULT_DAYS = 14;
+
+    private static final Pattern DURATION_PATTERN =
+            Pattern.compile("(?:(\\d+)\\s*h(?:ours?|rs?)?)?\\s*(?:(\\d+)\\s*m(?:in(?:ute)?s?)?)?");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+    private static final Pattern HOURS_PATTERN = Pattern.compile("(\\d{1,2}(?::\\d{2})?)\\s*-\\s*(\\d{1,2}(?::\\d{2})?)");
+
+    private final Duration duration;
+    private final int count;
+    private final int days;
+    private final LocalTime dayStart;
+    private final LocalTime dayEnd;
+
+    /**
+     * Creates a query.
+     *
+     * @param duration the shortest free slot worth reporting
+     * @param count the most slots to report
+     * @param days how many days to look through, starting today
+     * @param dayStart when the working day starts
+     * @param dayEnd when the working day ends (must be after dayStart)
+     * @throws IllegalArgumentException if any of these don't make sense
+     */
+    public FreeTimeQuery(Duration duration, int count, int days, LocalTime dayStart, LocalTime dayEnd) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Please specify a positive amount of time.");
+        }
+        if (count <= 0 || days <= 0) {
+            throw new IllegalArgumentException("The number of slots and days must be positive.");
+        }
+        if (!dayStart.isBefore(dayEnd)) {
+            throw new IllegalArgumentException("The working day has to start before it ends.");
+        }
+        this.duration = duration;
+        this.count = count;
+        this.days = days;
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+    }
+
+    /**
+     * Creates a query for the first slot of the given length in the next two weeks,
+     * during the default working hours.
+     *
+     * @param duration the shortest free slot worth reporting
+     */
+    public FreeTimeQuery(Duration duration) {
+        this(duration, 1, DEFAULT_DAYS, DEFAULT_DAY_START, DEFAULT_DAY_END);
+    }
+
+    /**
+     * Reads a query from what you typed after {@code freetime}.
+     *
+     * The length comes first: a plain number means hours ({@code 2}), or spell it out
+     * ({@code 90m}, {@code 1h30m}). After that, any of {@code /count <slots>},
+     * {@code /days <days>} and {@code /hours <start>-<end>} (like {@code 8-18} or
+     * {@code 8:30-17:30}) may follow, in any order.
+     *
+     * @param argument what you typed after {@code freetime}
+     * @return the query
+     * @throws IllegalArgumentException if something can't be understood
+     */
+    public static FreeTimeQuery parse(String argument) {
+        String[] parts = argument.trim().split("\\s*/");
+        Duration duration = parseDuration(parts[0]);
+        int count = 1;
+        int days = DEFAULT_DAYS;
+        LocalTime dayStart = DEFAULT_DAY_START;
+        LocalTime dayEnd = DEFAULT_DAY_END;
+
+        for (int i = 1; i < parts.length; i++) {
+            String[] option = parts[i].trim().split("\\s+", 2);
+            String value = (option.length > 1) ? option[1].trim() : "";
+            switch (option[0].toLowerCase()) {
+                case "count":
+                    count = parseNumber(value, "count");
+                    break;
+                case "days":
+                    days = parseNumber(value, "days");
+                    break;
+                case "hours":
+                    Matcher matcher = HOURS_PATTERN.matcher(value);
+                    if (!matcher.matches()) {
+                        throw new IllegalArgumentException("Working hours should look like 9-17 or 8:30-17:30.");
+                    }
+                    dayStart = parseTime(matcher.group(1));
+                    dayEnd = parseTime(matcher.group(2));
+                    break;
+                default:
+                    throw new IllegalArgumentException("I don't know the option /" + option[0]
+                            + ". Try /count, /days or /hours.");
+            }
+        }
+        return new FreeTimeQuery(duration, count, days, dayStart, dayEnd);
+    }
+
+    private static Duration parseDuration(String text) {
+        String trimmed = text.trim().toLowerCase();
+        if (trimmed.matches("\\d+")) {
+            return Duration.ofHours(parseNumber(trimmed, "hours"));
+        }
+        Matcher matcher = DURATION_PATTERN.matcher(trimmed);
+        if (trimmed.isEmpty() || !matcher.matches()) {
+            throw new IllegalArgumentException("That's not a valid amount of time: " + text.trim()
+                    + ". Try something like 2, 90m or 1h30m.");
+        }
+        long hours = (matcher.group(1) != null) ? parseNumber(matcher.group(1), "hours") : 0;
+        long minutes = (matcher.group(2) != null) ? parseNumber(matcher.group(2), "minutes") : 0;
+        return Duration.ofHours(hours).plusMinutes(minutes);
+    }
+
+    private static int parseNumber(String text, String name) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("That's not a valid number of " + name + ": " + text);
+        }
+    }
+
+    private static LocalTime parseTime(String text) {
+        try {
+            return LocalTime.parse(text.contains(":") ? text : text + ":00", TIME_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("That's not a valid time of day: " + text);
+        }
+    }
+
+    /**
+     * Gets the shortest free slot worth reporting.
+     *
+     * @return the duration
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the most slots to report.
+     *
+     * @return the number of slots
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets how many days to look through, starting today.
+     *
+     * @return the number of days
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Gets when the working day starts.
+     *
+     * @return the start of the working day
+     */
+    public LocalTime getDayStart() {
+        return dayStart;
+    }
+
+    /**
+     * Gets when the working day ends.
+     *
+     * @return the end of the working day
+     */
+    public LocalTime getDayEnd() {
+        return dayEnd;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof FreeTimeQuery)) {
+            return false;
+        }
+        FreeTimeQuery query = (FreeTimeQuery) other;
+        return duration.equals(query.duration) && count == query.count && days == query.days
+                && dayStart.equals(query.dayStart) && dayEnd.equals(query.dayEnd);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(duration, count, days, dayStart, dayEnd);
+    }
+}
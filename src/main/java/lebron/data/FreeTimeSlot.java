@@ -1,5 +1,6 @@
 package lebron.data;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -25,7 +26,7 @@ public class FreeTimeSlot {
     public FreeTimeSlot(LocalDateTime start, LocalDateTime end) {
         this.start = start;
         this.end = end;
-        this.durationHours = java.time.Duration.between(start, end).toHours();
+        this.durationHours = Duration.between(start, end).toHours();
     }
 
     /**
@@ -55,6 +56,41 @@ public class FreeTimeSlot {
         return durationHours;
     }
 
+    /**
+     * Gets the exact length of this free slot.
+     * 
+     * @return the duration, down to the minute (and beyond)
+     */
+    public Duration getDuration() {
+        return Duration.between(start, end);
+    }
+
+    /**
+     * Gets the length of this free slot in words, like "2 hours" or "1 hour 30 minutes".
+     * 
+     * @return the duration as a string
+     */
+    public String getDurationString() {
+        return formatDuration(getDuration());
+    }
+
+    /**
+     * Puts a duration in words, like "2 hours", "45 minutes" or "1 hour 30 minutes".
+     * 
+     * @param duration the duration to describe
+     * @return the duration as a string
+     */
+    public static String formatDuration(Duration duration) {
+        long hours = duration.toHours();
+        long minutes = duration.toMinutesPart();
+        String hoursString = hours + (hours == 1 ? " hour" : " hours");
+        String minutesString = minutes + (minutes == 1 ? " minute" : " minutes");
+        if (minutes == 0) {
+            return hoursString;
+        }
+        return (hours == 0) ? minutesString : hoursString + " " + minutesString;
+    }
+
     /**
      * Gets the start time as a formatted string.
      * 
@@ -80,6 +116,6 @@ public class FreeTimeSlot {
      */
     @Override
     public String toString() {
-        return getStartString() + " to " + getEndString() + " (" + durationHours + " hours)";
+        return getStartString() + " to " + getEndString() + " (" + getDurationString() + ")";
     }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package lebron.data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lebron.task.Event;
+
+/**
+ * An interval tree of events, for finding the events that overlap a stretch of time.
+ *
+ * Events are kept in a balanced (AVL) binary search tree ordered by start time. Each node
+ * also remembers the latest end time anywhere in its subtree, so a search can skip a whole
+ * subtree once it knows nothing in there ends late enough to overlap. Finding the {@code k}
+ * events that overlap a day takes O(log n + k) instead of a pass over every event, and
+ * adding or removing an event takes O(log n).
+ *
+ * Events that start at the same time are kept in the order they were added.
+ */
+class IntervalTree {
+    private final Map<Event, Long> sequenceNumbers = new HashMap<>();
+    private long nextSequenceNumber;
+    private Node root;
+
+    private static class Node {
+        private final Event event;
+        private final long sequenceNumber;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private LocalDateTime maxEnd;
+
+        Node(Event event, long sequenceNumber) {
+            this.event = event;
+            this.sequenceNumber = sequenceNumber;
+            this.maxEnd = event.getTo();
+        }
+    }
+
+    /**
+     * Adds an event. Adding the same event twice does nothing.
+     *
+     * @param event the event to add
+     */
+    void add(Event event) {
+        if (sequenceNumbers.containsKey(event)) {
+            return;
+        }
+        long sequenceNumber = nextSequenceNumber++;
+        sequenceNumbers.put(event, sequenceNumber);
+        root = insert(root, new Node(event, sequenceNumber));
+    }
+
+    /**
+     * Removes an event, if it is in the tree.
+     *
+     * @param event the event to remove
+     */
+    void remove(Event event) {
+        Long sequenceNumber = sequenceNumbers.remove(event);
+        if (sequenceNumber != null) {
+            root = delete(root, event.getFrom(), sequenceNumber);
+        }
+    }
+
+    /**
+     * Tells you how many events are in the tree.
+     *
+     * @return the number of events
+     */
+    int size() {
+        return sequenceNumbers.size();
+    }
+
+    /**
+     * Finds the events that overlap a stretch of time, touching ends included.
+     *
+     * @param from the start of the stretch
+     * @param to the end of the stretch
+     * @return the events that start no later than {@code to} and end no earlier than
+     *         {@code from}, sorted by start time
+     */
+    List<Event> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<Event> overlapping = new ArrayList<>();
+        collectOverlapping(root, from, to, overlapping);
+        return overlapping;
+    }
+
+    private static void collectOverlapping(Node node, LocalDateTime from, LocalDateTime to, List<Event> result) {
+        if (node == null || node.maxEnd.isBefore(from)) {
+            return;
+        }
+        collectOverlapping(node.left, from, to, result);
+        if (node.event.getFrom().isAfter(to)) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (!node.event.getTo().isBefore(from)) {
+            result.add(node.event);
+        }
+        collectOverlapping(node.right, from, to, result);
+    }
+
+    private static int compare(LocalDateTime start1, long sequenceNumber1, Node node) {
+        int byStart = start1.compareTo(node.event.getFrom());
+        return (byStart != 0) ? byStart : Long.compare(sequenceNumber1, node.sequenceNumber);
+    }
+
+    private static Node insert(Node node, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.event.getFrom(), newNode.sequenceNumber, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, LocalDateTime start, long sequenceNumber) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, sequenceNumber, node);
+        if (comparison < 0) {
+            node.left = delete(node.left, start, sequenceNumber);
+        } else if (comparison > 0) {
+            node.right = delete(node.right, start, sequenceNumber);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node newTop = node.left;
+        node.left = newTop.right;
+        newTop.right = node;
+        update(node);
+        update(newTop);
+        return newTop;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node newTop = node.right;
+        node.right = newTop.left;
+        newTop.left = node;
+        update(node);
+        update(newTop);
+        return newTop;
+    }
+
+    /**
+     * Recomputes a node's height and latest end time from its children.
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.event.getTo();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return (node == null) ? 0 : node.height;
+    }
+}
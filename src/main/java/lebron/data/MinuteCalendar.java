@@ -0,0 +1,283 @@
+package lebron.data;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import lebron.task.Event;
+
+/**
+ * A calendar that knows, minute by minute, when you're busy.
+ *
+ * Each day that has any events gets a bitmap of its 1440 minutes, packed into longs, with
+ * a bit set for every minute some event covers. Days without events take no space at all.
+ * Looking for free time is then a matter of scanning for runs of clear bits, 64 minutes
+ * at a time with {@link Long#numberOfTrailingZeros(long)}, so even a search a year ahead
+ * takes microseconds and creates no objects apart from the slots it finds.
+ *
+ * Adding an event just sets its bits. Removing one can't simply clear them, since another
+ * event might cover the same minutes, so the days it touched are redrawn from the events
+ * the {@link IntervalTree} says still overlap them.
+ *
+ * Events are rounded outwards to whole minutes: an event from 10:00:30 to 10:59:10 keeps
+ * the minutes 10:00 to 11:00 busy.
+ *
+ * Searches of four months or more are split into month-sized ranges and run on the common
+ * fork-join pool. The calendar is only read during a search, so the ranges can share it.
+ */
+class MinuteCalendar {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS_PER_DAY = (MINUTES_PER_DAY + 63) / 64;
+    private static final int PARALLEL_THRESHOLD_DAYS = 120;
+    private static final int DAYS_PER_TASK = 30;
+
+    private final IntervalTree events;
+    private final Map<Long, long[]> busyMinutes = new HashMap<>();
+
+    /**
+     * Creates an empty calendar.
+     *
+     * @param events the tree that will hold the same events as this calendar, used to redraw
+     *               days when an event is removed
+     */
+    MinuteCalendar(IntervalTree events) {
+        this.events = events;
+    }
+
+    /**
+     * Marks an event's minutes as busy.
+     *
+     * @param event the event to add
+     */
+    void add(Event event) {
+        markBusy(event, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Redraws the days an event touched, after it has been removed from the interval tree.
+     *
+     * @param event the event that was removed
+     */
+    void remove(Event event) {
+        long firstDay = event.getFrom().toLocalDate().toEpochDay();
+        long lastDay = roundUpToMinute(event.getTo()).toLocalDate().toEpochDay();
+        for (long day = firstDay; day <= lastDay; day++) {
+            busyMinutes.remove(day);
+            LocalDate date = LocalDate.ofEpochDay(day);
+            for (Event other : events.findOverlapping(date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+                markBusy(other, day, day);
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest free slots that are long enough.
+     *
+     * Searches a long way ahead are split into ranges of days that are searched in
+     * parallel; see {@link RangeSearch}. The answer is the same either way.
+     *
+     * @param query how long the slots must be, how many to find, and when to look
+     * @param searchStart when to start looking; nothing earlier is ever free
+     * @return up to {@code query.getCount()} free slots, earliest first, each covering the
+     *         whole gap (so it may be longer than asked for)
+     */
+    List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query, LocalDateTime searchStart) {
+        if (query.getDays() < PARALLEL_THRESHOLD_DAYS) {
+            return findFreeTimesSequentially(query, searchStart);
+        }
+        Search search = new Search(query, searchStart);
+        long firstDay = searchStart.toLocalDate().toEpochDay();
+        return ForkJoinPool.commonPool().invoke(new RangeSearch(search, firstDay, firstDay + query.getDays()));
+    }
+
+    /**
+     * Finds the earliest free slots that are long enough, one day after another on this
+     * thread.
+     *
+     * @param query how long the slots must be, how many to find, and when to look
+     * @param searchStart when to start looking; nothing earlier is ever free
+     * @return the same slots as {@link #findFreeTimes(FreeTimeQuery, LocalDateTime)}
+     */
+    List<FreeTimeSlot> findFreeTimesSequentially(FreeTimeQuery query, LocalDateTime searchStart) {
+        long firstDay = searchStart.toLocalDate().toEpochDay();
+        return new Search(query, searchStart).scan(firstDay, firstDay + query.getDays());
+    }
+
+    /**
+     * One free-time search: the query worked out in minutes, plus the day from which on
+     * nothing more needs to be searched.
+     */
+    private class Search {
+        private final int minutesNeeded;
+        private final int workStart;
+        private final int workEnd;
+        private final long earliestDay;
+        private final int earliestMinute;
+        private final int count;
+        private final AtomicLong cutoffDay = new AtomicLong(Long.MAX_VALUE);
+
+        Search(FreeTimeQuery query, LocalDateTime searchStart) {
+            minutesNeeded = (int) Math.min(MINUTES_PER_DAY + 1, roundUpToMinutes(query.getDuration()));
+            workStart = (int) roundUpToMinutes(Duration.ofNanos(query.getDayStart().toNanoOfDay()));
+            workEnd = query.getDayEnd().getHour() * 60 + query.getDayEnd().getMinute();
+            LocalDateTime earliest = roundUpToMinute(searchStart);
+            earliestDay = earliest.toLocalDate().toEpochDay();
+            earliestMinute = earliest.getHour() * 60 + earliest.getMinute();
+            count = query.getCount();
+        }
+
+        /**
+         * Finds the earliest free slots on the days in [fromDay, toDay).
+         *
+         * Once this finds enough slots, later days can't change the answer, so it tells
+         * every other range to stop at the day after. Likewise it stops itself when an
+         * earlier range has already found enough.
+         *
+         * @return up to {@code count} slots, earliest first
+         */
+        List<FreeTimeSlot> scan(long fromDay, long toDay) {
+            List<FreeTimeSlot> slots = new ArrayList<>();
+            for (long day = Math.max(fromDay, earliestDay); day < toDay && day < cutoffDay.get(); day++) {
+                int from = (day == earliestDay) ? Math.max(workStart, earliestMinute) : workStart;
+                long[] words = busyMinutes.get(day);
+                while (from < workEnd) {
+                    int freeStart = (words == null) ? from : nextMinute(words, from, workEnd, false);
+                    int freeEnd = (words == null) ? workEnd : nextMinute(words, freeStart, workEnd, true);
+                    if (freeEnd - freeStart >= minutesNeeded) {
+                        LocalDateTime midnight = LocalDate.ofEpochDay(day).atStartOfDay();
+                        slots.add(new FreeTimeSlot(midnight.plusMinutes(freeStart), midnight.plusMinutes(freeEnd)));
+                        if (slots.size() == count) {
+                            cutoffDay.accumulateAndGet(day + 1, Math::min);
+                            return slots;
+                        }
+                    }
+                    from = freeEnd;
+                }
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * Searches a range of days by splitting it in half until the pieces are small, searching
+     * the later half in the background while this thread does the earlier one.
+     *
+     * The earlier half always wins: its slots come first, and the later half's are only used
+     * to fill up what's missing. If the earlier half already found enough, the later half is
+     * cancelled, and any of its pieces that have started stop at the next day they look at,
+     * so the result is the same as searching day by day.
+     */
+    private static class RangeSearch extends RecursiveTask<List<FreeTimeSlot>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Search search;
+        private final long fromDay;
+        private final long toDay;
+
+        RangeSearch(Search search, long fromDay, long toDay) {
+            this.search = search;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        @Override
+        protected List<FreeTimeSlot> compute() {
+            if (toDay - fromDay <= DAYS_PER_TASK) {
+                return search.scan(fromDay, toDay);
+            }
+            long middleDay = fromDay + (toDay - fromDay) / 2;
+            RangeSearch later = new RangeSearch(search, middleDay, toDay);
+            later.fork();
+            List<FreeTimeSlot> slots = new RangeSearch(search, fromDay, middleDay).compute();
+            if (slots.size() == search.count) {
+                later.cancel(false);
+                return slots;
+            }
+            for (FreeTimeSlot slot : later.join()) {
+                if (slots.size() == search.count) {
+                    break;
+                }
+                slots.add(slot);
+            }
+            return slots;
+        }
+    }
+
+    /**
+     * Finds the first minute in [from, to) whose bit is set (or clear), a word at a time.
+     *
+     * @return that minute, or {@code to} if there is none
+     */
+    private static int nextMinute(long[] words, int from, int to, boolean isBusy) {
+        int index = from >>> 6;
+        long word = (isBusy ? words[index] : ~words[index]) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return Math.min(to, (index << 6) + Long.numberOfTrailingZeros(word));
+            }
+            index++;
+            if ((index << 6) >= to) {
+                return to;
+            }
+            word = isBusy ? words[index] : ~words[index];
+        }
+    }
+
+    /**
+     * Sets the bits of an event's minutes, but only on days between firstDay and lastDay.
+     */
+    private void markBusy(Event event, long firstDay, long lastDay) {
+        LocalDateTime start = event.getFrom().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime end = roundUpToMinute(event.getTo());
+        if (!start.isBefore(end)) {
+            return;
+        }
+        long startDay = start.toLocalDate().toEpochDay();
+        long endDay = end.toLocalDate().toEpochDay();
+        for (long day = Math.max(startDay, firstDay); day <= Math.min(endDay, lastDay); day++) {
+            int from = (day == startDay) ? minuteOfDay(start.toLocalTime()) : 0;
+            int to = (day == endDay) ? minuteOfDay(end.toLocalTime()) : MINUTES_PER_DAY;
+            if (from < to) {
+                setBits(busyMinutes.computeIfAbsent(day, key -> new long[WORDS_PER_DAY]), from, to);
+            }
+        }
+    }
+
+    private static void setBits(long[] words, int from, int to) {
+        int firstWord = from >>> 6;
+        int lastWord = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (firstWord == lastWord) {
+            words[firstWord] |= firstMask & lastMask;
+            return;
+        }
+        words[firstWord] |= firstMask;
+        for (int i = firstWord + 1; i < lastWord; i++) {
+            words[i] = -1L;
+        }
+        words[lastWord] |= lastMask;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static long roundUpToMinutes(Duration duration) {
+        long minutes = duration.toMinutes();
+        return duration.equals(Duration.ofMinutes(minutes)) ? minutes : minutes + 1;
+    }
+
+    private static LocalDateTime roundUpToMinute(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        return minute.equals(time) ? minute : minute.plusMinutes(1);
+    }
+}
@@ -0,0 +1,426 @@
+package lebron.data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import lebron.task.Deadline;
+import lebron.task.Event;
+import lebron.task.Task;
+import lebron.task.Todo;
+
+/**
+ * A read-only archive of tasks that lives outside the Java heap.
+ *
+ * The tasks are laid out in one block of memory: a short file header, then a fixed-width
+ * header of {@value #RECORD_SIZE} bytes per task (type, done flag, id, times, and where its
+ * description is), then all the descriptions as UTF-8. The block is either a direct buffer
+ * or a file mapped into memory, so however big the archive gets, the heap only holds the
+ * tasks you are looking at right now and the garbage collector never has to walk the rest.
+ * The block is also exactly what is written to disk, so {@link #save(Path)} and
+ * {@link #open(Path)} just copy or map it, with no encoding or decoding on the way.
+ *
+ * It answers a few of the read-only questions a {@link TaskList} does: {@link #get(int)},
+ * {@link #size()}, {@link #findTasks(String)} and {@link #findNextFreeTime(int)}. It isn't
+ * a replacement for one, though: nothing can be added, marked or deleted, and neither
+ * {@code TaskList} nor {@code Storage} uses it. To archive a list, build one with
+ * {@link #of(List)} and {@link #save(Path)} it yourself.
+ *
+ * Searching scans the descriptions in place, only turning into a {@code String} those that aren't plain ASCII.
+ * Looking for free time reads the times from the headers and only creates the events that
+ * fall inside the days being searched.
+ *
+ * A single buffer can't be bigger than 2 GB, which is room for roughly 40 million tasks
+ * with short descriptions.
+ */
+public class OffHeapTaskArchive {
+    /** How many bytes each task's header takes. */
+    public static final int RECORD_SIZE = 32;
+
+    private static final int MAGIC = 0x4C42_4F41; // "LBOA"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 16;
+
+    private static final byte NONE = 0;
+    private static final byte TODO = 1;
+    private static final byte DEADLINE = 2;
+    private static final byte EVENT = 3;
+
+    private static final int FLAG_DONE = 1;
+    private static final int FLAG_ASCII = 2;
+
+    // Where each field is within a task header
+    private static final int TYPE = 0;
+    private static final int FLAGS = 1;
+    private static final int ID = 4;
+    private static final int START = 8;
+    private static final int END = 16;
+    private static final int DESCRIPTION_OFFSET = 24;
+    private static final int DESCRIPTION_LENGTH = 28;
+
+    private final ByteBuffer block;
+    private final int size;
+    private final int descriptionsStart;
+
+    private OffHeapTaskArchive(ByteBuffer block) {
+        this.block = block;
+        this.size = block.getInt(8);
+        this.descriptionsStart = FILE_HEADER_SIZE + size * RECORD_SIZE;
+    }
+
+    /**
+     * Copies tasks into a new archive in off-heap memory.
+     *
+     * @param tasks the tasks to copy, in list order (null entries are kept as null)
+     * @return the archive
+     * @throws IllegalArgumentException if the tasks don't fit in one archive
+     */
+    public static OffHeapTaskArchive of(List<Task> tasks) {
+        byte[][] descriptions = new byte[tasks.size()][];
+        long descriptionBytes = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task != null && task.getDescription() != null) {
+                descriptions[i] = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                descriptionBytes += descriptions[i].length;
+            }
+        }
+        long totalBytes = FILE_HEADER_SIZE + (long) tasks.size() * RECORD_SIZE + descriptionBytes;
+        if (totalBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("That's too many tasks for one archive.");
+        }
+
+        ByteBuffer block = ByteBuffer.allocateDirect((int) totalBytes);
+        block.putInt(0, MAGIC);
+        block.putInt(4, VERSION);
+        block.putInt(8, tasks.size());
+        int descriptionsStart = FILE_HEADER_SIZE + tasks.size() * RECORD_SIZE;
+        int descriptionOffset = 0;
+        int i = 0;
+        for (Task task : tasks) {
+            int record = FILE_HEADER_SIZE + i * RECORD_SIZE;
+            byte[] description = descriptions[i];
+            block.put(record + TYPE, typeOf(task));
+            block.put(record + FLAGS, (byte) ((task != null && task.isDone() ? FLAG_DONE : 0)
+                    | (description != null && isAscii(description) ? FLAG_ASCII : 0)));
+            block.putInt(record + ID, (task == null) ? 0 : task.getId());
+            if (task instanceof Deadline) {
+                block.putLong(record + START, toEpochSecond(((Deadline) task).getBy()));
+            } else if (task instanceof Event) {
+                block.putLong(record + START, toEpochSecond(((Event) task).getFrom()));
+                block.putLong(record + END, toEpochSecond(((Event) task).getTo()));
+            }
+            block.putInt(record + DESCRIPTION_OFFSET, descriptionOffset);
+            block.putInt(record + DESCRIPTION_LENGTH, (description == null) ? -1 : description.length);
+            if (description != null) {
+                block.put(descriptionsStart + descriptionOffset, description);
+                descriptionOffset += description.length;
+            }
+            i++;
+        }
+        return new OffHeapTaskArchive(block);
+    }
+
+    /**
+     * Maps an archive that was saved with {@link #save(Path)} into memory.
+     *
+     * Only the task headers are checked up front, so a damaged file is turned away here
+     * rather than failing later; the operating system pages the descriptions in as they
+     * are used.
+     *
+     * @param path the archive file
+     * @return the archive
+     * @throws IOException if the file can't be read or isn't an intact task archive
+     */
+    public static OffHeapTaskArchive open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < FILE_HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a task archive: " + path);
+            }
+            ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (block.getInt(0) != MAGIC || block.getInt(4) != VERSION) {
+                throw new IOException("Not a task archive: " + path);
+            }
+            if (!hasValidHeaders(block)) {
+                throw new IOException("Damaged task archive: " + path);
+            }
+            return new OffHeapTaskArchive(block);
+        }
+    }
+
+    /**
+     * Checks that the task count fits the block and that every task header has a known
+     * type, times a {@code LocalDateTime} can hold, and a description inside the block.
+     */
+    private static boolean hasValidHeaders(ByteBuffer block) {
+        int size = block.getInt(8);
+        long descriptionsStart = FILE_HEADER_SIZE + (long) size * RECORD_SIZE;
+        if (size < 0 || descriptionsStart > block.capacity()) {
+            return false;
+        }
+        long earliest = toEpochSecond(LocalDateTime.MIN);
+        long latest = toEpochSecond(LocalDateTime.MAX);
+        for (int i = 0; i < size; i++) {
+            int record = FILE_HEADER_SIZE + i * RECORD_SIZE;
+            byte type = block.get(record + TYPE);
+            long start = block.getLong(record + START);
+            long end = block.getLong(record + END);
+            int offset = block.getInt(record + DESCRIPTION_OFFSET);
+            int length = block.getInt(record + DESCRIPTION_LENGTH);
+            if (type < NONE || type > EVENT || offset < 0 || length < -1
+                    || descriptionsStart + offset + Math.max(length, 0) > block.capacity()) {
+                return false;
+            }
+            if ((type == DEADLINE || type == EVENT) && (start < earliest || start > latest)) {
+                return false;
+            }
+            if (type == EVENT && (end < earliest || end > latest)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the archive to a file, byte for byte as it is in memory.
+     *
+     * The bytes go to a temporary file next to it first, which is then moved into place.
+     * That way a crash never leaves half an archive behind, and saving over the very file
+     * this archive was opened from is safe: the old file stays mapped until it is let go.
+     *
+     * @param path where to write it (replacing anything that's there)
+     * @throws IOException if writing fails
+     */
+    public void save(Path path) throws IOException {
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer contents = block.duplicate();
+            contents.clear();
+            while (contents.hasRemaining()) {
+                channel.write(contents);
+            }
+        }
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Tells you how many tasks are in the archive.
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets a task from the archive.
+     *
+     * @param index the position of the task
+     * @return a new task with the archived contents, or null if index is invalid (or a null
+     *         task was archived there)
+     */
+    public Task get(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        int record = FILE_HEADER_SIZE + index * RECORD_SIZE;
+        String description = getDescription(record);
+        Task task;
+        switch (block.get(record + TYPE)) {
+            case TODO:
+                task = new Todo(description);
+                break;
+            case DEADLINE:
+                task = new Deadline(description, toDateTime(block.getLong(record + START)));
+                break;
+            case EVENT:
+                task = new Event(description, toDateTime(block.getLong(record + START)),
+                        toDateTime(block.getLong(record + END)));
+                break;
+            default:
+                return null;
+        }
+        task.setId(block.getInt(record + ID));
+        task.setDone((block.get(record + FLAGS) & FLAG_DONE) != 0);
+        task.markClean();
+        return task;
+    }
+
+    /**
+     * Finds the tasks whose description contains the keyword, ignoring case, like
+     * {@link TaskList#findTasks(String)}.
+     *
+     * @param keyword what to search for
+     * @return the matching tasks, in archive order (empty list if no matches or invalid keyword)
+     */
+    public List<Task> findTasks(String keyword) {
+        List<Task> matches = new ArrayList<>();
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return matches;
+        }
+        String lowercaseKeyword = keyword.trim().toLowerCase();
+        byte[] asciiKeyword = lowercaseKeyword.getBytes(StandardCharsets.UTF_8);
+        boolean isAsciiKeyword = isAscii(asciiKeyword);
+
+        for (int i = 0; i < size; i++) {
+            int record = FILE_HEADER_SIZE + i * RECORD_SIZE;
+            int length = block.getInt(record + DESCRIPTION_LENGTH);
+            if (length < asciiKeyword.length && isAsciiKeyword) {
+                continue;
+            }
+            boolean isMatch;
+            if (isAsciiKeyword && (block.get(record + FLAGS) & FLAG_ASCII) != 0) {
+                isMatch = containsIgnoringAsciiCase(descriptionsStart + block.getInt(record + DESCRIPTION_OFFSET),
+                        length, asciiKeyword);
+            } else {
+                String description = getDescription(record);
+                isMatch = description != null && description.toLowerCase().contains(lowercaseKeyword);
+            }
+            if (isMatch) {
+                matches.add(get(i));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the next free time slot of the specified duration, like
+     * {@link TaskList#findNextFreeTime(int)}.
+     *
+     * @param hoursNeeded the minimum number of hours needed
+     * @return the earliest available free time slot, or null if none found
+     */
+    public FreeTimeSlot findNextFreeTime(int hoursNeeded) {
+        return findNextFreeTime(hoursNeeded, LocalDateTime.now());
+    }
+
+    FreeTimeSlot findNextFreeTime(int hoursNeeded, LocalDateTime searchStart) {
+        if (hoursNeeded <= 0) {
+            return null;
+        }
+        List<FreeTimeSlot> slots = findFreeTimes(new FreeTimeQuery(Duration.ofHours(hoursNeeded)), searchStart);
+        if (slots.isEmpty()) {
+            return null;
+        }
+        LocalDateTime start = slots.get(0).getStart();
+        return new FreeTimeSlot(start, start.plusHours(hoursNeeded));
+    }
+
+    /**
+     * Finds the earliest free slots that are long enough, like
+     * {@link TaskList#findFreeTimes(FreeTimeQuery)}.
+     *
+     * @param query how long the slots must be, how many you want, and when to look
+     * @return up to the requested number of free slots, earliest first
+     */
+    public List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query) {
+        return findFreeTimes(query, LocalDateTime.now());
+    }
+
+    /**
+     * Finds free slots from a given time, building a calendar of just the events that
+     * overlap the days being searched.
+     */
+    List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query, LocalDateTime searchStart) {
+        LocalDate firstDay = searchStart.toLocalDate();
+        long horizonStart = toEpochSecond(firstDay.atStartOfDay());
+        long horizonEnd = toEpochSecond(firstDay.plusDays(query.getDays()).atStartOfDay());
+        IntervalTree events = new IntervalTree();
+        MinuteCalendar calendar = new MinuteCalendar(events);
+        for (int i = 0; i < size; i++) {
+            int record = FILE_HEADER_SIZE + i * RECORD_SIZE;
+            if (block.get(record + TYPE) == EVENT && block.getLong(record + START) < horizonEnd
+                    && block.getLong(record + END) > horizonStart) {
+                Event event = (Event) get(i);
+                events.add(event);
+                calendar.add(event);
+            }
+        }
+        return calendar.findFreeTimes(query, searchStart);
+    }
+
+    private String getDescription(int record) {
+        int length = block.getInt(record + DESCRIPTION_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        block.get(descriptionsStart + block.getInt(record + DESCRIPTION_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if the ASCII text at [start, start + length) contains a lowercase ASCII keyword,
+     * ignoring case, without copying it out of the block.
+     */
+    private boolean containsIgnoringAsciiCase(int start, int length, byte[] keyword) {
+        if (keyword.length == 0) {
+            return true;
+        }
+        int last = start + length - keyword.length;
+        byte first = keyword[0];
+        for (int i = start; i <= last; i++) {
+            if (toLowerCase(block.get(i)) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < keyword.length && toLowerCase(block.get(i + j)) == keyword[j]) {
+                j++;
+            }
+            if (j == keyword.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerCase(byte b) {
+        return (b >= 'A' && b <= 'Z') ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte typeOf(Task task) {
+        if (task instanceof Todo) {
+            return TODO;
+        } else if (task instanceof Deadline) {
+            return DEADLINE;
+        } else if (task instanceof Event) {
+            return EVENT;
+        } else if (task == null) {
+            return NONE;
+        }
+        throw new IllegalArgumentException("Unknown kind of task: " + task.getClass().getSimpleName());
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,332 @@
+package lebron.data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import lebron.task.Task;
+
+/**
+ * Searches task descriptions with a regular expression ({@code /meet(ing)?s?/}) or a
+ * wildcard pattern ({@code book*club}, where {@code *} stands for anything).
+ *
+ * Compiled patterns are kept in a small least-recently-used cache, so running the same
+ * search again doesn't compile it again. Before the regex engine runs at all, the literal
+ * text the pattern can't match without (like "book" and "club" above) is looked up in the
+ * {@link TaskIndex}, so only descriptions that contain it are ever matched.
+ *
+ * Some patterns take exponentially long on the wrong input, like {@code /(.*a){25}b/}. To
+ * keep one search from freezing the app, each description gets a budget of steps and the
+ * whole search a time limit; going over either throws an {@link IllegalArgumentException}
+ * explaining that the pattern is too slow.
+ */
+class PatternSearch {
+    private static final int CACHE_SIZE = 32;
+    private static final int STEPS_PER_DESCRIPTION = 100_000;
+    private static final long TIME_LIMIT_NANOS = 2_000_000_000L;
+
+    private final Map<String, CompiledPattern> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledPattern> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /**
+     * A compiled pattern and the lowercase text fragments every match must contain.
+     */
+    private static class CompiledPattern {
+        private final Pattern pattern;
+        private final List<String> literals;
+
+        CompiledPattern(Pattern pattern, List<String> literals) {
+            this.pattern = pattern;
+            this.literals = literals;
+        }
+    }
+
+    /**
+     * Thrown from deep inside the regex engine when a search goes over its budget.
+     */
+    private static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Checks if a search keyword is a pattern rather than plain text.
+     *
+     * @param keyword the trimmed keyword
+     * @return true for {@code /regex/} and for keywords with a {@code *} wildcard
+     */
+    static boolean isPattern(String keyword) {
+        return isRegex(keyword) || keyword.indexOf('*') >= 0;
+    }
+
+    private static boolean isRegex(String keyword) {
+        return keyword.length() > 2 && keyword.startsWith("/") && keyword.endsWith("/");
+    }
+
+    /**
+     * Finds the tasks whose description matches a pattern, ignoring case.
+     *
+     * @param keyword the trimmed {@code /regex/} or wildcard pattern
+     * @param tasks all tasks, in list order
+     * @param index the index to prefilter with
+     * @return the matching tasks, in list order
+     * @throws IllegalArgumentException if the pattern is invalid or too slow to run
+     */
+    List<Task> find(String keyword, List<Task> tasks, TaskIndex index) {
+        CompiledPattern compiled = cache.get(keyword);
+        if (compiled == null) {
+            compiled = compile(keyword);
+            cache.put(keyword, compiled);
+        }
+
+        List<Task> candidates = null;
+        String longestLiteral = "";
+        for (String literal : compiled.literals) {
+            if (literal.length() > longestLiteral.length()) {
+                longestLiteral = literal;
+            }
+        }
+        if (!longestLiteral.isEmpty()) {
+            candidates = index.find(longestLiteral);
+        }
+        if (candidates == null) {
+            candidates = tasks;
+        }
+
+        long deadline = System.nanoTime() + TIME_LIMIT_NANOS;
+        List<Task> matches = new ArrayList<>();
+        int checked = 0;
+        for (Task task : candidates) {
+            if ((checked++ & 0xFF) == 0 && System.nanoTime() > deadline) {
+                throw tooSlow();
+            }
+            if (task != null && containsAll(task.getDescription().toLowerCase(), compiled.literals)
+                    && matches(compiled.pattern, task.getDescription(), deadline)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    private static boolean containsAll(String description, List<String> literals) {
+        for (String literal : literals) {
+            if (!description.contains(literal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Pattern pattern, String description, long deadline) {
+        try {
+            return pattern.matcher(new BudgetedText(description, deadline)).find();
+        } catch (BudgetExceededException e) {
+            throw tooSlow();
+        } catch (StackOverflowError e) {
+            throw new IllegalArgumentException("That pattern is too complex to search with."
+                    + " Try something simpler.");
+        }
+    }
+
+    private static IllegalArgumentException tooSlow() {
+        return new IllegalArgumentException("That pattern takes too long to search with. Try something simpler.");
+    }
+
+    private static CompiledPattern compile(String keyword) {
+        int flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL;
+        if (!isRegex(keyword)) {
+            List<String> literals = new ArrayList<>();
+            StringBuilder regex = new StringBuilder();
+            for (String part : keyword.split("\\*", -1)) {
+                if (regex.length() > 0) {
+                    regex.append(".*");
+                }
+                if (!part.isEmpty()) {
+                    regex.append(Pattern.quote(part));
+                    literals.add(part.toLowerCase());
+                }
+            }
+            return new CompiledPattern(Pattern.compile(regex.toString(), flags), literals);
+        }
+
+        String regex = keyword.substring(1, keyword.length() - 1);
+        try {
+            return new CompiledPattern(Pattern.compile(regex, flags), requiredLiterals(regex));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("That isn't a valid pattern: " + e.getDescription()
+                    + " (near position " + e.getIndex() + ")");
+        }
+    }
+
+    /**
+     * Picks out runs of plain characters that any match of a regex has to contain.
+     *
+     * This errs on the side of finding too little: anything inside a group, a character
+     * class or a quantified character is skipped, and a regex with a top-level {@code |},
+     * inline flags, or an escape that takes an operand (like {@code \x41}, {@code \p{Lu}}
+     * or a back reference) gives no literals at all (then every description is a candidate).
+     *
+     * @param regex a valid regex
+     * @return the lowercase literal runs
+     */
+    static List<String> requiredLiterals(String regex) {
+        List<String> literals = new ArrayList<>();
+        if (regex.contains("(?") || regex.contains("\\Q")) {
+            return literals;
+        }
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '|') {
+                return new ArrayList<>();
+            } else if (c == '*' || c == '?' || c == '{') {
+                // The character before this one might not be there at all
+                if (run.length() > 0) {
+                    run.setLength(run.length() - 1);
+                }
+                endRun(run, literals);
+                i = (c == '{') ? skipPast(regex, i, '}') : i + 1;
+            } else if (c == '+') {
+                endRun(run, literals);
+                i++;
+            } else if (c == '\\' && i + 1 < regex.length()) {
+                char escaped = regex.charAt(i + 1);
+                if (hasOperand(regex, i + 1)) {
+                    // Its operand would look like plain characters, which it isn't
+                    return new ArrayList<>();
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    endRun(run, literals);
+                } else {
+                    run.append(escaped);
+                }
+                i += 2;
+            } else if (c == '[') {
+                endRun(run, literals);
+                i = skipClass(regex, i);
+            } else if (c == '(') {
+                endRun(run, literals);
+                i = skipGroup(regex, i);
+            } else if (c == '.' || c == '^' || c == '$') {
+                endRun(run, literals);
+                i++;
+            } else {
+                run.append(c);
+                i++;
+            }
+        }
+        endRun(run, literals);
+        return literals;
+    }
+
+    /**
+     * Checks if the escape whose letter is at the given position is followed by an operand,
+     * such as the digits of {@code \x41} or the name in {@code \p{Lu}}.
+     */
+    private static boolean hasOperand(String regex, int letter) {
+        char escaped = regex.charAt(letter);
+        if ("xu0cpPNk".indexOf(escaped) >= 0 || (escaped >= '1' && escaped <= '9')) {
+            return true;
+        }
+        return escaped == 'b' && letter + 1 < regex.length() && regex.charAt(letter + 1) == '{';
+    }
+
+    private static void endRun(StringBuilder run, List<String> literals) {
+        if (run.length() > 0) {
+            literals.add(run.toString().toLowerCase());
+            run.setLength(0);
+        }
+    }
+
+    private static int skipPast(String regex, int from, char end) {
+        int i = regex.indexOf(end, from);
+        return (i < 0) ? regex.length() : i + 1;
+    }
+
+    private static int skipClass(String regex, int start) {
+        int i = start + 1;
+        int depth = 1;
+        while (i < regex.length() && depth > 0) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && i > start + 1) {
+                depth--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipGroup(String regex, int start) {
+        int i = start + 1;
+        int depth = 1;
+        while (i < regex.length() && depth > 0) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                i = skipClass(regex, i) - 1;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * A description that counts how often the regex engine looks at it.
+     *
+     * Every step of a regex match reads a character, so counting reads is a cheap way to
+     * notice a match that has gone exponential, without a separate watchdog thread.
+     */
+    private static class BudgetedText implements CharSequence {
+        private final String text;
+        private final long deadline;
+        private int steps;
+
+        BudgetedText(String text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            steps++;
+            if (steps > STEPS_PER_DESCRIPTION
+                    || ((steps & 0xFFF) == 0 && System.nanoTime() > deadline)) {
+                throw new BudgetExceededException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
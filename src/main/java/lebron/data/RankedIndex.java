@@ -0,0 +1,257 @@
+package lebron.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A full-text index that ranks texts by how well they match a query, using BM25.
+ *
+ * Texts are cut into words, and each word is trimmed down to its stem by a light English
+ * stemmer, so "reading", "reads" and "read" all count as the same term. For each term the
+ * index keeps the slots of the texts using it and how often they do, in slot order.
+ *
+ * A text scores higher when it uses the query's terms more often, when those terms are
+ * rare across all texts, and when it is short (a term in a three-word task says more than
+ * the same term in a paragraph). Only the best few results are kept while scoring, in a
+ * small heap, so asking for the top 10 of 100,000 hits never sorts 100,000 of anything.
+ */
+class RankedIndex {
+    /** How quickly repeating a term stops adding to the score. */
+    private static final double K1 = 1.2;
+    /** How much a long text is penalised for being long (0 is not at all, 1 is fully). */
+    private static final double B = 0.75;
+
+    private final Map<String, Posting> postings = new HashMap<>();
+    private int[] lengths = new int[16];
+    private int textCount;
+    private long totalLength;
+    private float[] scores = new float[16];
+
+    /**
+     * The slots using one term, in increasing order, with how often each uses it.
+     */
+    private static class Posting {
+        private int[] slots = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void put(int slot, int frequency) {
+            int index = (size == 0 || slots[size - 1] < slot) ? size : Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0 && index < size) {
+                frequencies[index] = frequency;
+                return;
+            }
+            if (index < 0) {
+                index = -(index + 1);
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            System.arraycopy(frequencies, index, frequencies, index + 1, size - index);
+            slots[index] = slot;
+            frequencies[index] = frequency;
+            size++;
+        }
+
+        void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Adds a text under the given slot.
+     *
+     * @param slot the slot of the text
+     * @param text the text to index
+     */
+    void add(int slot, String text) {
+        List<String> terms = terms(text);
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new Posting()).put(slot, entry.getValue());
+        }
+
+        if (slot >= lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(slot + 1, lengths.length * 2));
+        }
+        lengths[slot] = terms.size();
+        textCount++;
+        totalLength += terms.size();
+    }
+
+    /**
+     * Removes a text that was added under the given slot.
+     *
+     * @param slot the slot of the text
+     * @param text the text, exactly as it was added
+     */
+    void remove(int slot, String text) {
+        for (String term : new LinkedHashSet<>(terms(text))) {
+            Posting posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(slot);
+                if (posting.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= lengths[slot];
+        lengths[slot] = 0;
+        textCount--;
+    }
+
+    /**
+     * Finds the texts that best match the query.
+     *
+     * @param query the words to look for; any one of them is enough to match
+     * @param limit the most results to return
+     * @return the slots of the best matches, best first (ties go to the lower slot)
+     */
+    int[] search(String query, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(terms(query));
+        if (queryTerms.isEmpty() || limit <= 0 || textCount == 0) {
+            return new int[0];
+        }
+        if (scores.length < lengths.length) {
+            scores = new float[lengths.length];
+        }
+
+        double averageLength = Math.max(1.0, (double) totalLength / textCount);
+        List<Integer> scoredSlots = new ArrayList<>();
+        for (String term : queryTerms) {
+            Posting posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (textCount - posting.size + 0.5) / (posting.size + 0.5));
+            for (int i = 0; i < posting.size; i++) {
+                int slot = posting.slots[i];
+                int frequency = posting.frequencies[i];
+                double lengthRatio = lengths[slot] / averageLength;
+                if (scores[slot] == 0) {
+                    scoredSlots.add(slot);
+                }
+                scores[slot] += (float) (idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengthRatio)));
+            }
+        }
+
+        // Keep the best ones seen so far in a min-heap, so the weakest is always on top
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, this::compareScores);
+        for (int slot : scoredSlots) {
+            if (best.size() < limit) {
+                best.add(slot);
+            } else if (compareScores(slot, best.peek()) > 0) {
+                best.poll();
+                best.add(slot);
+            }
+        }
+
+        int[] result = new int[best.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = best.poll();
+        }
+        for (int slot : scoredSlots) {
+            scores[slot] = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Orders slots from worst to best match.
+     */
+    private int compareScores(int slot1, int slot2) {
+        int byScore = Float.compare(scores[slot1], scores[slot2]);
+        return (byScore != 0) ? byScore : Integer.compare(slot2, slot1);
+    }
+
+    /**
+     * Cuts text into lowercase words and stems each one, keeping repeats.
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lowercase = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lowercase.length(); i++) {
+            boolean isWordChar = i < lowercase.length() && Character.isLetterOrDigit(lowercase.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                terms.add(stem(lowercase.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Trims common English endings off a lowercase word.
+     *
+     * This is deliberately light: it only strips plurals and the usual "-ing", "-ed" and
+     * "-ly" endings, and undoes the doubled consonant they leave ("planning" becomes
+     * "plan"). It won't win any linguistics prizes, but it makes "meeting" find "meetings"
+     * without ever turning a word into something unrecognisable.
+     *
+     * @param word a lowercase word
+     * @return its stem
+     */
+    static String stem(String word) {
+        if (word.length() <= 3) {
+            return word;
+        }
+        String stem = word;
+        if (stem.endsWith("ies") && stem.length() > 4) {
+            stem = stem.substring(0, stem.length() - 3) + "y";
+        } else if (stem.endsWith("sses") || stem.endsWith("shes") || stem.endsWith("ches")
+                || stem.endsWith("xes")) {
+            stem = stem.substring(0, stem.length() - 2);
+        } else if (stem.endsWith("s") && !stem.endsWith("ss") && !stem.endsWith("us") && !stem.endsWith("is")) {
+            stem = stem.substring(0, stem.length() - 1);
+        }
+
+        for (String ending : new String[] {"ing", "ed", "ly"}) {
+            if (stem.endsWith(ending) && stem.length() - ending.length() >= 3
+                    && hasVowel(stem, stem.length() - ending.length())) {
+                stem = stem.substring(0, stem.length() - ending.length());
+                int length = stem.length();
+                if (length >= 2 && stem.charAt(length - 1) == stem.charAt(length - 2)
+                        && !isVowel(stem.charAt(length - 1)) && "lsz".indexOf(stem.charAt(length - 1)) < 0) {
+                    stem = stem.substring(0, length - 1);
+                }
+                break;
+            }
+        }
+        return stem;
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if (isVowel(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVowel(char c) {
+        return "aeiouy".indexOf(c) >= 0;
+    }
+}
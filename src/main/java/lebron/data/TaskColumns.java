@@ -0,0 +1,348 @@
+package lebron.data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import lebron.task.Deadline;
+import lebron.task.Event;
+import lebron.task.Task;
+import lebron.task.Todo;
+
+/**
+ * A compact list of tasks for when you have millions of them.
+ *
+ * Every {@link Task} is its own object with a {@code String} and one or two
+ * {@code LocalDateTime}s hanging off it, which adds up to well over a hundred bytes per
+ * task and a lot of objects for the garbage collector to chase. This list keeps the same
+ * information in a few flat columns instead:
+ * <ul>
+ *   <li>a {@code byte} per task saying whether it's a todo, a deadline or an event,</li>
+ *   <li>a bit per task saying whether it's done,</li>
+ *   <li>the task id in an {@code int} array, and the deadline (or event start) and the
+ *       event end as seconds since 1970 in two {@code long} arrays,</li>
+ *   <li>every description as UTF-8 in one shared byte array, with an offset and a length
+ *       per task.</li>
+ * </ul>
+ *
+ * {@link #get(int)} puts together a fresh {@code Task} each time it's called, so the
+ * tasks you get are copies: change a task through this list ({@link #set(int, Task)},
+ * {@link #setDone(int, boolean)}), not through the copy. Times are kept to the second.
+ *
+ * This is a standalone container for bulk storage, not a backing for {@link TaskList}:
+ * {@code TaskList} still keeps its tasks as objects, because the tasks it hands out are
+ * changed in place and tracked by its indexes, and copies can't do that.
+ *
+ * Adding at the end is amortised O(1) and reading is O(1). Removing shifts the columns
+ * after the removed task, which is quick for primitive arrays but still O(n). Descriptions
+ * that are replaced or removed leave garbage behind in the shared array, which is cleared
+ * out once it makes up half of it.
+ */
+public class TaskColumns extends AbstractList<Task> {
+    private static final byte NONE = 0;
+    private static final byte TODO = 1;
+    private static final byte DEADLINE = 2;
+    private static final byte EVENT = 3;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int[] descriptionOffsets = new int[INITIAL_CAPACITY];
+    private int[] descriptionLengths = new int[INITIAL_CAPACITY];
+    private final BitSet done = new BitSet();
+    private byte[] descriptions = new byte[INITIAL_CAPACITY * 16];
+    private int descriptionsUsed;
+    private int descriptionsGarbage;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public TaskColumns() {
+    }
+
+    /**
+     * Creates a list holding copies of the given tasks, in the same order.
+     *
+     * @param tasks the tasks to copy
+     */
+    public TaskColumns(Collection<Task> tasks) {
+        ensureCapacity(tasks.size());
+        for (Task task : tasks) {
+            add(task);
+        }
+        trimToSize();
+    }
+
+    /**
+     * Gives back the room kept spare for more tasks and longer descriptions, and drops
+     * descriptions no task uses any more.
+     */
+    public void trimToSize() {
+        moveDescriptions(descriptionsUsed - descriptionsGarbage);
+        resize(size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts together the task at the given position.
+     *
+     * The task is a copy, not a view: changing it (say, with {@code setDone}) doesn't
+     * change this list. Use {@link #setDone(int, boolean)} or {@link #set(int, Task)} for that.
+     *
+     * @param index the position of the task
+     * @return a new task with the same contents, or null if a null task was added there
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        Task task;
+        switch (types[index]) {
+            case TODO:
+                task = new Todo(getDescription(index));
+                break;
+            case DEADLINE:
+                task = new Deadline(getDescription(index), toDateTime(starts[index]));
+                break;
+            case EVENT:
+                task = new Event(getDescription(index), toDateTime(starts[index]), toDateTime(ends[index]));
+                break;
+            default:
+                return null;
+        }
+        task.setId(ids[index]);
+        task.setDone(done.get(index));
+        task.markClean();
+        return task;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        byte type = typeOf(task);
+        ensureCapacity(size + 1);
+        if (index < size) {
+            shift(index, index + 1, size - index);
+        }
+        size++;
+        modCount++;
+        write(index, task, type);
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        byte type = typeOf(task);
+        Task oldTask = get(index);
+        forgetDescription(index);
+        write(index, task, type);
+        return oldTask;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task oldTask = get(index);
+        forgetDescription(index);
+        shift(index + 1, index, size - index - 1);
+        size--;
+        done.clear(size);
+        modCount++;
+        return oldTask;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        done.clear();
+        descriptionsUsed = 0;
+        descriptionsGarbage = 0;
+        modCount++;
+    }
+
+    /**
+     * Gets the description of the task at the given position, without putting together
+     * the whole task.
+     *
+     * @param index the position of the task
+     * @return the description
+     */
+    public String getDescription(int index) {
+        checkIndex(index);
+        int length = descriptionLengths[index];
+        if (length < 0) {
+            return null;
+        }
+        return new String(descriptions, descriptionOffsets[index], length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if the task at the given position is done.
+     *
+     * @param index the position of the task
+     * @return true if it's done
+     */
+    public boolean isDone(int index) {
+        checkIndex(index);
+        return done.get(index);
+    }
+
+    /**
+     * Marks the task at the given position as done or not done.
+     *
+     * @param index the position of the task
+     * @param isDone true to mark it as done
+     */
+    public void setDone(int index, boolean isDone) {
+        checkIndex(index);
+        done.set(index, isDone);
+    }
+
+    /**
+     * Gets the id of the task at the given position.
+     *
+     * @param index the position of the task
+     * @return the id
+     */
+    public int getId(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    private void write(int index, Task task, byte type) {
+        types[index] = type;
+        ids[index] = (task == null) ? 0 : task.getId();
+        done.set(index, task != null && task.isDone());
+        starts[index] = 0;
+        ends[index] = 0;
+        if (task instanceof Deadline) {
+            starts[index] = toEpochSecond(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            starts[index] = toEpochSecond(((Event) task).getFrom());
+            ends[index] = toEpochSecond(((Event) task).getTo());
+        }
+
+        descriptionOffsets[index] = 0;
+        descriptionLengths[index] = -1;
+        String description = (task == null) ? null : task.getDescription();
+        if (description == null) {
+            return;
+        }
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        if (descriptionsUsed + bytes.length > descriptions.length) {
+            makeRoomForDescription(bytes.length);
+        }
+        System.arraycopy(bytes, 0, descriptions, descriptionsUsed, bytes.length);
+        descriptionOffsets[index] = descriptionsUsed;
+        descriptionLengths[index] = bytes.length;
+        descriptionsUsed += bytes.length;
+    }
+
+    private static byte typeOf(Task task) {
+        if (task instanceof Todo) {
+            return TODO;
+        } else if (task instanceof Deadline) {
+            return DEADLINE;
+        } else if (task instanceof Event) {
+            return EVENT;
+        } else if (task == null) {
+            return NONE;
+        }
+        throw new IllegalArgumentException("Unknown kind of task: " + task.getClass().getSimpleName());
+    }
+
+    private void forgetDescription(int index) {
+        descriptionsGarbage += Math.max(0, descriptionLengths[index]);
+        descriptionLengths[index] = -1;
+    }
+
+    /**
+     * Makes room for more description bytes, first by dropping the ones no task uses any
+     * more (if that frees enough) and otherwise by growing the array.
+     */
+    private void makeRoomForDescription(int extraBytes) {
+        int liveBytes = descriptionsUsed - descriptionsGarbage;
+        int capacity = descriptions.length;
+        if (descriptionsGarbage < capacity / 2 || liveBytes + extraBytes > capacity / 2) {
+            capacity = Math.max(capacity * 2, liveBytes + extraBytes);
+        }
+        moveDescriptions(capacity);
+    }
+
+    /**
+     * Copies the descriptions still in use to the front of a new array of the given size.
+     */
+    private void moveDescriptions(int capacity) {
+        byte[] compacted = new byte[capacity];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            int length = descriptionLengths[i];
+            if (length >= 0) {
+                // Empty descriptions are moved too, so no offset is left past the end
+                System.arraycopy(descriptions, descriptionOffsets[i], compacted, used, length);
+                descriptionOffsets[i] = used;
+                used += length;
+            }
+        }
+        descriptions = compacted;
+        descriptionsUsed = used;
+        descriptionsGarbage = 0;
+    }
+
+    private void shift(int from, int to, int count) {
+        System.arraycopy(types, from, types, to, count);
+        System.arraycopy(ids, from, ids, to, count);
+        System.arraycopy(starts, from, starts, to, count);
+        System.arraycopy(ends, from, ends, to, count);
+        System.arraycopy(descriptionOffsets, from, descriptionOffsets, to, count);
+        System.arraycopy(descriptionLengths, from, descriptionLengths, to, count);
+        if (from < to) {
+            for (int i = from + count - 1; i >= from; i--) {
+                done.set(i + to - from, done.get(i));
+            }
+        } else {
+            for (int i = from; i < from + count; i++) {
+                done.set(i + to - from, done.get(i));
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= types.length) {
+            return;
+        }
+        resize(Math.max(capacity, types.length + (types.length >> 1)));
+    }
+
+    private void resize(int newCapacity) {
+        types = Arrays.copyOf(types, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        starts = Arrays.copyOf(starts, newCapacity);
+        ends = Arrays.copyOf(ends, newCapacity);
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, newCapacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
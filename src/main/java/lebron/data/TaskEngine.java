@@ -0,0 +1,223 @@
+package lebron.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Runs every change to a {@link TaskList} on one thread of its own, so the command line,
+ * the GUI and scripts can all send it commands at the same time.
+ *
+ * Commands wait their turn in a mailbox of limited size. The writer thread takes them out
+ * in batches, runs each against the task list, publishes a {@link TaskSnapshot} of the
+ * result, and only then completes each command's future, so whoever sent a command sees its
+ * effect in {@link #snapshot()} straight away. Read-only work like listing tasks can use
+ * that snapshot without waiting in line at all.
+ *
+ * When the mailbox is full, new commands are turned away instead of piling up, so the
+ * time a command spends waiting stays bounded. A command that throws only fails its own
+ * future; the writer carries on with the next one.
+ */
+public class TaskEngine implements AutoCloseable {
+    /** How many commands may wait in the mailbox unless you say otherwise. */
+    public static final int DEFAULT_MAILBOX_SIZE = 1024;
+
+    private static final Command<Void> STOP = new Command<>(tasks -> null);
+
+    private final TaskList tasks;
+    private final BlockingQueue<Command<?>> mailbox;
+    private final Thread writer;
+    private volatile TaskSnapshot current;
+    private volatile boolean isClosed;
+
+    /**
+     * A command waiting in the mailbox, and the future its sender is holding.
+     */
+    private static class Command<R> {
+        private final Function<TaskList, R> action;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private R value;
+        private Throwable failure;
+
+        Command(Function<TaskList, R> action) {
+            this.action = action;
+        }
+
+        void run(TaskList tasks) {
+            try {
+                value = action.apply(tasks);
+            } catch (Throwable e) {
+                failure = e;
+            }
+        }
+
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+
+    /**
+     * Creates an engine with the default mailbox size and starts its writer thread.
+     *
+     * @param tasks the task list; from now on, only change it through this engine
+     */
+    public TaskEngine(TaskList tasks) {
+        this(tasks, DEFAULT_MAILBOX_SIZE);
+    }
+
+    /**
+     * Creates an engine and starts its writer thread.
+     *
+     * @param tasks the task list; from now on, only change it through this engine
+     * @param mailboxSize how many commands may wait at once
+     */
+    public TaskEngine(TaskList tasks, int mailboxSize) {
+        this.tasks = tasks;
+        this.mailbox = new ArrayBlockingQueue<>(mailboxSize);
+        this.current = tasks.getSnapshot();
+        this.writer = new Thread(this::runLoop, "lebron-task-engine");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Sends a command to the writer thread.
+     *
+     * The command may read and change the task list (and, say, record the change in
+     * storage), but shouldn't hold on to the list, touch the screen, or send commands of
+     * its own (it would wait for itself forever).
+     *
+     * @param action what to do with the task list
+     * @param <R> what the command returns
+     * @return a future that completes with the command's result once its change is visible
+     *         in {@link #snapshot()}, or fails if the command threw, the mailbox was full, or
+     *         the engine is closed
+     */
+    public <R> CompletableFuture<R> submit(Function<TaskList, R> action) {
+        Command<R> command = new Command<>(action);
+        if (isClosed) {
+            command.result.completeExceptionally(new RejectedExecutionException("The task engine has been shut down."));
+        } else if (!mailbox.offer(command)) {
+            command.result.completeExceptionally(new RejectedExecutionException("Too many commands at once."
+                    + " Please try again in a moment."));
+        } else if (isClosed && mailbox.remove(command)) {
+            // The engine closed while this was being queued, and nobody will run it now
+            reject(List.of(command));
+        }
+        return command.result;
+    }
+
+    /**
+     * Sends a command to the writer thread and waits for its result.
+     *
+     * @param action what to do with the task list
+     * @param <R> what the command returns
+     * @return what the command returned
+     * @throws RuntimeException whatever the command threw, or a
+     *         {@link RejectedExecutionException} if it couldn't be queued
+     */
+    public <R> R call(Function<TaskList, R> action) {
+        try {
+            return submit(action).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the tasks as of the last finished command, without waiting.
+     *
+     * @return the latest snapshot
+     */
+    public TaskSnapshot snapshot() {
+        return current;
+    }
+
+    /**
+     * Stops taking commands, runs the ones already waiting, and stops the writer thread.
+     *
+     * Safe to call more than once.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+        }
+        boolean isInterrupted = false;
+        while (true) {
+            try {
+                mailbox.put(STOP);
+                break;
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        List<Command<?>> leftovers = new ArrayList<>();
+        mailbox.drainTo(leftovers);
+        reject(leftovers);
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLoop() {
+        List<Command<?>> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(mailbox.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            mailbox.drainTo(batch);
+            int stop = batch.indexOf(STOP);
+            if (stop >= 0) {
+                runBatch(batch.subList(0, stop));
+                reject(batch.subList(stop + 1, batch.size()));
+                return;
+            }
+            runBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private static void reject(List<Command<?>> commands) {
+        for (Command<?> command : commands) {
+            command.result.completeExceptionally(new RejectedExecutionException("The task engine has been shut down."));
+        }
+    }
+
+    private void runBatch(List<Command<?>> batch) {
+        for (Command<?> command : batch) {
+            command.run(tasks);
+        }
+        current = tasks.getSnapshot();
+        for (Command<?> command : batch) {
+            command.complete();
+        }
+    }
+}
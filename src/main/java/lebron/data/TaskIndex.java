@@ -0,0 +1,387 @@
+package lebron.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import lebron.task.Task;
+
+/**
+ * An inverted index from the words in task descriptions to the tasks that use them.
+ *
+ * Descriptions are lowercased and cut into tokens (runs of letters and digits), and also
+ * fed to a {@link TrigramIndex}. Looking up a keyword turns it into a small set of
+ * candidate tasks, which are then checked with a plain {@code contains}, so the results
+ * are exactly what a full scan would give:
+ * - a word in the middle of the keyword must be a whole token of the description
+ * - otherwise, a keyword of three characters or more is looked up by its trigrams, which
+ *   finds it anywhere, even in the middle of a word
+ * - a shorter keyword's last word must start a token, found with a range lookup
+ * - its first word must end a token, found the same way on the reversed tokens
+ * - a single short word may sit anywhere inside a token; then the distinct tokens (not
+ *   the tasks) are scanned for it, and being a candidate already proves the match
+ *
+ * Each task gets a slot number in list order, so matches come back in list order without
+ * walking or sorting the list.
+ */
+class TaskIndex {
+    private final Map<String, List<Task>> postings = new HashMap<>();
+    private final TreeSet<String> vocabulary = new TreeSet<>();
+    private final TreeSet<String> reversedVocabulary = new TreeSet<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final Map<Task, Integer> slots = new HashMap<>();
+    private final List<Task> tasksBySlot = new ArrayList<>();
+    private RankedIndex ranked;
+    private BkTree similarWords;
+
+    /**
+     * Indexes a task that was just added to the end of the list.
+     *
+     * @param task the task to index
+     */
+    void add(Task task) {
+        int slot = tasksBySlot.size();
+        slots.put(task, slot);
+        tasksBySlot.add(task);
+        trigrams.add(slot, lowercase(task.getDescription()));
+        if (ranked != null) {
+            ranked.add(slot, task.getDescription());
+        }
+        for (String token : tokenize(task.getDescription())) {
+            postings.computeIfAbsent(token, this::newPosting).add(task);
+        }
+    }
+
+    /**
+     * Indexes a task that takes the place of another one in the list.
+     *
+     * @param oldTask the task being replaced
+     * @param newTask the task replacing it
+     */
+    void replace(Task oldTask, Task newTask) {
+        Integer slot = slots.get(oldTask);
+        if (slot == null) {
+            add(newTask);
+            return;
+        }
+        remove(oldTask);
+        slots.put(newTask, slot);
+        tasksBySlot.set(slot, newTask);
+        trigrams.add(slot, lowercase(newTask.getDescription()));
+        if (ranked != null) {
+            ranked.add(slot, newTask.getDescription());
+        }
+        addTokens(newTask, newTask.getDescription());
+    }
+
+    /**
+     * Forgets about a task that was removed from the list.
+     *
+     * @param task the task to forget
+     */
+    void remove(Task task) {
+        Integer slot = slots.get(task);
+        if (slot != null) {
+            removeTokens(task, task.getDescription());
+            trigrams.remove(slot, lowercase(task.getDescription()));
+            if (ranked != null) {
+                ranked.remove(slot, task.getDescription());
+            }
+            slots.remove(task);
+            tasksBySlot.set(slot, null);
+        }
+    }
+
+    /**
+     * Re-indexes a task whose description just changed.
+     *
+     * @param task the task that changed
+     * @param oldDescription what its description used to be
+     */
+    void descriptionChanged(Task task, String oldDescription) {
+        Integer slot = slots.get(task);
+        if (slot != null) {
+            removeTokens(task, oldDescription);
+            trigrams.remove(slot, lowercase(oldDescription));
+            addTokens(task, task.getDescription());
+            trigrams.add(slot, lowercase(task.getDescription()));
+            if (ranked != null) {
+                ranked.remove(slot, oldDescription);
+                ranked.add(slot, task.getDescription());
+            }
+        }
+    }
+
+    /**
+     * Finds the tasks that best match a query, best first.
+     *
+     * The {@link RankedIndex} behind this is only built the first time it is needed.
+     *
+     * @param query the words to look for
+     * @param limit the most tasks to return
+     * @return the best matching tasks
+     */
+    List<Task> rank(String query, int limit) {
+        if (ranked == null) {
+            ranked = new RankedIndex();
+            for (int slot = 0; slot < tasksBySlot.size(); slot++) {
+                Task task = tasksBySlot.get(slot);
+                if (task != null) {
+                    ranked.add(slot, task.getDescription());
+                }
+            }
+        }
+        List<Task> results = new ArrayList<>();
+        for (int slot : ranked.search(query, limit)) {
+            results.add(tasksBySlot.get(slot));
+        }
+        return results;
+    }
+
+    /**
+     * Finds the tasks whose description contains the keyword.
+     *
+     * @param keyword the lowercased, trimmed keyword
+     * @return the matching tasks, in list order, or null if the keyword is too short and has
+     *         no letters or digits to look up (then only a full scan can tell)
+     */
+    List<Task> find(String keyword) {
+        List<String> words = tokenize(keyword);
+        String wholeWord = findWholeWord(keyword, words);
+        List<Task> candidates;
+        if (wholeWord != null) {
+            candidates = postings.getOrDefault(wholeWord, List.of());
+        } else if (keyword.length() >= 3) {
+            candidates = new ArrayList<>();
+            for (int slot : trigrams.find(keyword)) {
+                candidates.add(tasksBySlot.get(slot));
+            }
+        } else if (!words.isEmpty()) {
+            candidates = findInVocabulary(keyword, words);
+        } else {
+            return null;
+        }
+        // A short keyword that is just one word matches every task with a token containing
+        // it; everything else is only a candidate until checked
+        boolean isCheckNeeded = wholeWord != null || keyword.length() >= 3 || !keyword.equals(words.get(0));
+
+        List<Task> matches = new ArrayList<>();
+        for (Task task : candidates) {
+            if (!isCheckNeeded || task.getDescription().toLowerCase().contains(keyword)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the tasks that contain every word of the keyword, give or take a typo or two.
+     *
+     * Each word is matched against whole tokens through a {@link BkTree} of the
+     * vocabulary, which is only built the first time it is needed. Short words have to be
+     * closer: words of up to two characters must match exactly, up to four may be one edit
+     * off, and longer ones two.
+     *
+     * @param keyword the lowercased, trimmed keyword
+     * @return the matching tasks, in list order
+     */
+    List<Task> findSimilar(String keyword) {
+        if (similarWords == null || similarWords.size() > 2 * vocabulary.size() + 16) {
+            // Words that left the vocabulary stay in the tree, so start over once they pile up
+            similarWords = new BkTree();
+            for (String token : vocabulary) {
+                similarWords.add(token);
+            }
+        }
+
+        List<Task> matches = null;
+        for (String word : tokenize(keyword)) {
+            int maxDistance = (word.length() <= 2) ? 0 : (word.length() <= 4) ? 1 : 2;
+            List<String> similarTokens = new ArrayList<>();
+            for (String token : similarWords.find(word, maxDistance)) {
+                if (postings.containsKey(token)) {
+                    similarTokens.add(token);
+                }
+            }
+            List<Task> wordMatches = union(similarTokens, false);
+            if (matches == null) {
+                matches = new ArrayList<>(wordMatches);
+            } else {
+                matches.retainAll(new HashSet<>(wordMatches));
+            }
+        }
+        return (matches != null) ? matches : new ArrayList<>();
+    }
+
+    /**
+     * Finds a word of the keyword that has to be a whole token of any matching description.
+     *
+     * @return that word, or null if every word might be cut short
+     */
+    private static String findWholeWord(String keyword, List<String> words) {
+        if (words.isEmpty()) {
+            return null;
+        }
+        boolean isCutAtStart = isTokenChar(keyword.charAt(0));
+        boolean isCutAtEnd = isTokenChar(keyword.charAt(keyword.length() - 1));
+        for (int i = 0; i < words.size(); i++) {
+            boolean isWhole = (i > 0 || !isCutAtStart) && (i < words.size() - 1 || !isCutAtEnd);
+            if (isWhole) {
+                return words.get(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up a keyword too short for trigrams through the tokens it can start or end.
+     *
+     * @return the candidate tasks in list order
+     */
+    private List<Task> findInVocabulary(String keyword, List<String> words) {
+        boolean isCutAtStart = isTokenChar(keyword.charAt(0));
+        boolean isCutAtEnd = isTokenChar(keyword.charAt(keyword.length() - 1));
+        if (words.size() > 1 || !isCutAtStart) {
+            return union(withPrefix(vocabulary, words.get(words.size() - 1)), false);
+        }
+        if (!isCutAtEnd) {
+            return union(withPrefix(reversedVocabulary, reverse(words.get(0))), true);
+        }
+
+        List<String> matchingTokens = new ArrayList<>();
+        for (String token : vocabulary) {
+            if (token.contains(keyword)) {
+                matchingTokens.add(token);
+            }
+        }
+        return union(matchingTokens, false);
+    }
+
+    private static Collection<String> withPrefix(TreeSet<String> tokens, String prefix) {
+        return tokens.subSet(prefix, true, prefix + Character.MAX_VALUE, true);
+    }
+
+    /**
+     * Merges the postings of several tokens into one list in list order, without duplicates.
+     */
+    private List<Task> union(Collection<String> matchingTokens, boolean isReversed) {
+        if (matchingTokens.size() == 1) {
+            String token = matchingTokens.iterator().next();
+            return postings.get(isReversed ? reverse(token) : token);
+        }
+        List<Task> candidates = new ArrayList<>();
+        for (String token : matchingTokens) {
+            candidates.addAll(postings.get(isReversed ? reverse(token) : token));
+        }
+        candidates.sort((task1, task2) -> Integer.compare(slots.get(task1), slots.get(task2)));
+        List<Task> distinct = new ArrayList<>(candidates.size());
+        for (Task task : candidates) {
+            if (distinct.isEmpty() || distinct.get(distinct.size() - 1) != task) {
+                distinct.add(task);
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * Adds a task that may sit anywhere in the list to the posting of each of its tokens,
+     * keeping the postings sorted by list order.
+     */
+    private void addTokens(Task task, String description) {
+        int position = slots.get(task);
+        for (String token : tokenize(description)) {
+            List<Task> posting = postings.computeIfAbsent(token, this::newPosting);
+            if (posting.isEmpty() || slots.get(posting.get(posting.size() - 1)) < position) {
+                posting.add(task);
+            } else {
+                posting.add(-(indexOf(posting, position) + 1), task);
+            }
+        }
+    }
+
+    private void removeTokens(Task task, String description) {
+        int position = slots.get(task);
+        for (String token : tokenize(description)) {
+            List<Task> posting = postings.get(token);
+            int index = (posting != null) ? indexOf(posting, position) : -1;
+            if (index >= 0) {
+                posting.remove(index);
+                if (posting.isEmpty()) {
+                    postings.remove(token);
+                    vocabulary.remove(token);
+                    reversedVocabulary.remove(reverse(token));
+                }
+            }
+        }
+    }
+
+    /**
+     * Binary searches a posting for the task at the given list position.
+     *
+     * @return its index, or {@code -(insertion point) - 1} if it isn't there
+     */
+    private int indexOf(List<Task> posting, int position) {
+        int low = 0;
+        int high = posting.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middlePosition = slots.get(posting.get(middle));
+            if (middlePosition < position) {
+                low = middle + 1;
+            } else if (middlePosition > position) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private List<Task> newPosting(String token) {
+        if (similarWords != null) {
+            similarWords.add(token);
+        }
+        vocabulary.add(token);
+        reversedVocabulary.add(reverse(token));
+        return new ArrayList<>();
+    }
+
+    /**
+     * Cuts text into its distinct lowercase tokens.
+     */
+    static List<String> tokenize(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        if (text == null) {
+            return new ArrayList<>(result);
+        }
+        String lowercase = text.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= lowercase.length(); i++) {
+            boolean isToken = i < lowercase.length() && isTokenChar(lowercase.charAt(i));
+            if (isToken && start < 0) {
+                start = i;
+            } else if (!isToken && start >= 0) {
+                result.add(lowercase.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static String lowercase(String description) {
+        return (description != null) ? description.toLowerCase() : "";
+    }
+
+    private static String reverse(String token) {
+        return new StringBuilder(token).reverse().toString();
+    }
+}
@@ -2,8 +2,8 @@ package lebron.data;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.LocalDate;
 import lebron.task.Task;
 import lebron.task.Event;
 
@@ -15,13 +15,23 @@ import lebron.task.Event;
  * It's designed to be robust and handle edge cases gracefully.
  */
 public class TaskList {
-    private List<Task> tasks;
+    private TaskSequence tasks;
+    private List<Task> deletedTasks;
+    private int nextId;
+    private TaskIndex index;
+    private IntervalTree eventTree;
+    private MinuteCalendar calendar;
+    private TaskSnapshot snapshot;
+    private final FreeTimeCache freeTimeCache = new FreeTimeCache();
+    private final PatternSearch patternSearch = new PatternSearch();
 
     /**
      * Creates a new, empty task list ready to hold your tasks.
      */
     public TaskList() {
-        this.tasks = new ArrayList<>();
+        this.tasks = new TaskSequence();
+        this.deletedTasks = new ArrayList<>();
+        this.nextId = 1;
     }
 
     /**
@@ -30,16 +40,50 @@ public class TaskList {
      * @param tasks the existing tasks to start with (can be null, we'll handle it)
      */
     public TaskList(List<Task> tasks) {
-        this.tasks = (tasks != null) ? tasks : new ArrayList<>();
+        List<Task> initialTasks = (tasks != null) ? tasks : new ArrayList<>();
+        this.deletedTasks = new ArrayList<>();
+        this.nextId = 1;
+        for (Task task : initialTasks) {
+            if (task != null) {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+        }
+        for (Task task : initialTasks) {
+            assignId(task);
+        }
+        this.tasks = new TaskSequence(initialTasks);
     }
 
     /**
      * Adds a new task to your list.
      * 
+     * Tasks that don't have an id yet are given the next free one, so every task
+     * in the list can be referred to by a stable id (handy for the storage journal).
+     * 
      * @param task the task to add (even handles null gracefully)
      */
     public void add(Task task) {
+        assignId(task);
         tasks.add(task);
+        if (snapshot != null) {
+            snapshot = snapshot.withAdded(snapshot.size(), task);
+        }
+        if (index != null && task != null) {
+            index.add(task);
+            task.setDescriptionListener(index::descriptionChanged);
+        }
+        addEvent(task);
+    }
+
+    private void assignId(Task task) {
+        if (task == null) {
+            return;
+        }
+        if (task.getId() <= 0) {
+            task.setId(nextId++);
+        } else {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
     }
 
     /**
@@ -50,11 +94,105 @@ public class TaskList {
      */
     public Task delete(int index) {
         if (index >= 0 && index < tasks.size()) {
-            return tasks.remove(index);
+            Task task = tasks.remove(index);
+            if (task != null) {
+                deletedTasks.add(task);
+                unindex(task);
+            }
+            if (snapshot != null) {
+                snapshot = snapshot.withRemoved(index);
+            }
+            return task;
+        }
+        return null;
+    }
+
+    /**
+     * Removes a task without remembering it as deleted.
+     * 
+     * Use this for tasks that are already gone from storage (say, someone deleted them from
+     * the data file on another machine), so there is nothing left to save about them.
+     * 
+     * @param index the position of the task to remove
+     * @return the removed task, or null if the index is out of bounds
+     */
+    public Task discard(int index) {
+        if (index >= 0 && index < tasks.size()) {
+            Task task = tasks.remove(index);
+            unindex(task);
+            if (snapshot != null) {
+                snapshot = snapshot.withRemoved(index);
+            }
+            return task;
+        }
+        return null;
+    }
+
+    /**
+     * Puts a different task in place of the one at the given position.
+     * 
+     * @param index the position of the task to replace
+     * @param task the task to put there
+     * @return the task that was replaced, or null if the index is out of bounds
+     */
+    public Task replace(int index, Task task) {
+        if (index >= 0 && index < tasks.size()) {
+            assignId(task);
+            Task oldTask = tasks.set(index, task);
+            if (this.index != null && task != null && oldTask != null) {
+                // Replacing in the index (rather than removing and adding) keeps the list order
+                oldTask.setDescriptionListener(null);
+                this.index.replace(oldTask, task);
+                task.setDescriptionListener(this.index::descriptionChanged);
+            } else if (this.index != null && task != null) {
+                this.index.add(task);
+                task.setDescriptionListener(this.index::descriptionChanged);
+            } else if (this.index != null && oldTask != null) {
+                this.index.remove(oldTask);
+                oldTask.setDescriptionListener(null);
+            }
+            removeEvent(oldTask);
+            addEvent(task);
+            if (snapshot != null) {
+                snapshot = snapshot.withReplaced(index, task);
+            }
+            return oldTask;
         }
         return null;
     }
 
+    private void unindex(Task task) {
+        if (index != null && task != null) {
+            index.remove(task);
+            task.setDescriptionListener(null);
+        }
+        removeEvent(task);
+    }
+
+    private void addEvent(Task task) {
+        if (task instanceof Event) {
+            freeTimeCache.invalidate();
+        }
+        if (eventTree != null && task instanceof Event) {
+            eventTree.add((Event) task);
+            if (calendar != null) {
+                calendar.add((Event) task);
+            }
+        }
+    }
+
+    private void removeEvent(Task task) {
+        if (task instanceof Event) {
+            freeTimeCache.invalidate();
+        }
+        if (eventTree != null && task instanceof Event) {
+            eventTree.remove((Event) task);
+            if (calendar != null) {
+                calendar.remove((Event) task);
+            }
+        }
+    }
+
     /**
      * Gets a specific task from your list without removing it.
      * 
@@ -68,9 +206,32 @@ public class TaskList {
         return null;
     }
 
+    /**
+     * Finds a task by its id, which (unlike its position) never changes.
+     * 
+     * @param id the task's id
+     * @return the task with that id, or null if there is none
+     */
+    public Task getById(int id) {
+        return tasks.getById(id);
+    }
+
+    /**
+     * Finds where a task is in the list right now, given its id.
+     * 
+     * @param id the task's id
+     * @return the task's position (0-based), or -1 if there is no task with that id
+     */
+    public int indexOfId(int id) {
+        return tasks.indexOfId(id);
+    }
+
     /**
      * Gets all tasks in the list.
      * 
+     * Getting a task from this list by position takes O(log n), so prefer looping over it
+     * with for-each, which takes O(1) per task.
+     * 
      * @return the complete list of tasks
      */
     public List<Task> getAllTasks() {
@@ -96,7 +257,68 @@ public class TaskList {
         Task task = get(index);
         if (task != null) {
             task.setDone(isDone);
+            if (task instanceof Event) {
+                freeTimeCache.invalidate();
+            }
+            if (snapshot != null) {
+                snapshot = snapshot.withNextVersion();
+            }
+        }
+    }
+
+    /**
+     * Gets an unchanging copy of the list as it is right now.
+     * 
+     * The first call copies the list, in O(n). After that the copy is kept up to date as
+     * tasks come and go, which costs O(log n) per change (see {@link TaskSnapshot}), so
+     * asking again is instant. The snapshot can be handed to other threads, but this
+     * method itself has to be called by whoever changes the list.
+     * 
+     * @return the snapshot
+     */
+    TaskSnapshot getSnapshot() {
+        if (snapshot == null) {
+            snapshot = TaskSnapshot.of(tasks, 0);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the tasks that were added or changed since the last {@link #clearChanges()}.
+     * 
+     * Storage uses this to write just those tasks instead of the whole list.
+     * 
+     * @return the new or changed tasks, in list order
+     */
+    public List<Task> getChangedTasks() {
+        List<Task> changedTasks = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task != null && task.isDirty()) {
+                changedTasks.add(task);
+            }
+        }
+        return changedTasks;
+    }
+
+    /**
+     * Gets the tasks that were deleted since the last {@link #clearChanges()}.
+     * 
+     * @return the deleted tasks, in the order they were deleted
+     */
+    public List<Task> getDeletedTasks() {
+        return new ArrayList<>(deletedTasks);
+    }
+
+    /**
+     * Forgets about all pending changes, usually because they have just been saved.
+     */
+    public void clearChanges() {
+        for (Task task : tasks) {
+            if (task != null) {
+                task.markClean();
+            }
         }
+        deletedTasks.clear();
     }
 
     /**
@@ -105,6 +327,10 @@ public class TaskList {
      * This is a case-insensitive search that looks through task descriptions.
      * Super handy when you have lots of tasks and need to find specific ones!
      * 
+     * The first search builds a {@link TaskIndex} of the words in every description, which
+     * is then kept up to date as tasks come and go. After that, a search only looks at the
+     * tasks that share words with the keyword instead of reading every description.
+     * 
      * @param keyword what to search for in task descriptions
      * @return a list of matching tasks (empty list if no matches or invalid keyword)
      */
@@ -113,9 +339,13 @@ public class TaskList {
             return new ArrayList<>();
         }
         
-        List<Task> matchingTasks = new ArrayList<>();
         String lowercaseKeyword = keyword.trim().toLowerCase();
-        
+        List<Task> indexedMatches = getIndex().find(lowercaseKeyword);
+        if (indexedMatches != null) {
+            return indexedMatches;
+        }
+
+        List<Task> matchingTasks = new ArrayList<>();
         for (Task task : tasks) {
             if (task != null && task.getDescription().toLowerCase().contains(lowercaseKeyword)) {
                 matchingTasks.add(task);
@@ -125,6 +355,82 @@ public class TaskList {
         return matchingTasks;
     }
 
+    /**
+     * Searches your tasks with a regular expression or a wildcard pattern, ignoring case.
+     * 
+     * Write a regular expression between slashes, like {@code /meet(ing)?s?/}, or use
+     * {@code *} to stand for anything, like {@code book*club}. Either one may match
+     * anywhere in a description.
+     * 
+     * @param pattern the {@code /regex/} or wildcard pattern
+     * @return the matching tasks, in list order
+     * @throws IllegalArgumentException if the pattern is invalid or too slow to search with
+     */
+    public List<Task> findTasksMatching(String pattern) {
+        if (pattern == null || pattern.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return patternSearch.find(pattern.trim(), tasks, getIndex());
+    }
+
+    /**
+     * Checks if a search keyword should go to {@link #findTasksMatching(String)}.
+     * 
+     * @param keyword the keyword to check
+     * @return true if it is a {@code /regex/} or contains a {@code *} wildcard
+     */
+    public static boolean isPattern(String keyword) {
+        return keyword != null && PatternSearch.isPattern(keyword.trim());
+    }
+
+    /**
+     * Searches your tasks like {@link #findTasks(String)}, but forgives typos.
+     * 
+     * Each word of the keyword matches whole words in a description that are within an
+     * edit or two of it, so "meetnig" still finds "project meeting". A task has to match
+     * every word of the keyword.
+     * 
+     * @param keyword the (possibly misspelled) words to search for
+     * @return the matching tasks, in list order (empty list if no matches or invalid keyword)
+     */
+    public List<Task> findSimilarTasks(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return getIndex().findSimilar(keyword.trim().toLowerCase());
+    }
+
+    /**
+     * Searches your tasks and ranks them by how well they match, best first.
+     * 
+     * Unlike {@link #findTasks(String)}, this looks for whole words (and their other forms,
+     * so "meeting" also finds "meetings") and a task only needs one of the words to show up.
+     * Tasks with more of the words, rarer words, and shorter descriptions come first.
+     * 
+     * @param query the words to search for
+     * @param limit the most tasks to return
+     * @return up to limit matching tasks, best first (empty list if nothing matches)
+     */
+    public List<Task> rankTasks(String query, int limit) {
+        if (query == null || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return getIndex().rank(query, limit);
+    }
+
+    private TaskIndex getIndex() {
+        if (index == null) {
+            index = new TaskIndex();
+            for (Task task : tasks) {
+                if (task != null) {
+                    index.add(task);
+                    task.setDescriptionListener(index::descriptionChanged);
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Finds the next free time slot of the specified duration.
      * 
@@ -135,82 +441,91 @@ public class TaskList {
      * @return the earliest available free time slot, or null if none found
      */
     public FreeTimeSlot findNextFreeTime(int hoursNeeded) {
+        return findNextFreeTime(hoursNeeded, LocalDateTime.now());
+    }
+
+    /**
+     * Finds the next free time slot of the specified duration, looking from a given time.
+     * 
+     * @param hoursNeeded the minimum number of hours needed
+     * @param searchStart when to start looking
+     * @return a slot of exactly hoursNeeded at the start of the earliest gap that fits,
+     *         or null if none found
+     */
+    FreeTimeSlot findNextFreeTime(int hoursNeeded, LocalDateTime searchStart) {
         if (hoursNeeded <= 0) {
             return null;
         }
-
-        List<Event> events = getEventsFromTasks();
-        LocalDateTime searchStart = LocalDateTime.now();
-        
-        for (int day = 0; day < 14; day++) {
-            LocalDate currentDate = searchStart.toLocalDate().plusDays(day);
-            LocalDateTime dayStart = currentDate.atTime(9, 0);
-            LocalDateTime dayEnd = currentDate.atTime(21, 0);
-            
-            FreeTimeSlot freeSlot = findFreeTimeInDay(dayStart, dayEnd, hoursNeeded, events);
-            if (freeSlot != null) {
-                return freeSlot;
-            }
+        List<FreeTimeSlot> slots = findFreeTimes(new FreeTimeQuery(Duration.ofHours(hoursNeeded)), searchStart);
+        if (slots.isEmpty()) {
+            return null;
         }
-        
-        return null;
+        LocalDateTime start = slots.get(0).getStart();
+        return new FreeTimeSlot(start, start.plusHours(hoursNeeded));
     }
 
-    private List<Event> getEventsFromTasks() {
-        List<Event> events = new ArrayList<>();
-        for (Task task : tasks) {
-            if (task instanceof Event) {
-                events.add((Event) task);
-            }
-        }
-        
-        events.sort((e1, e2) -> e1.getFrom().compareTo(e2.getFrom()));
-        return events;
+    /**
+     * Finds the earliest free slots in your schedule that are long enough.
+     * 
+     * Only working hours count, and nothing before now is ever free. Each slot covers the
+     * whole gap between events, so it may be longer than you asked for.
+     * 
+     * @param query how long the slots must be, how many you want, and when to look
+     * @return up to the requested number of free slots, earliest first
+     */
+    public List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query) {
+        return findFreeTimes(query, LocalDateTime.now());
     }
 
-    private FreeTimeSlot findFreeTimeInDay(LocalDateTime dayStart, LocalDateTime dayEnd, 
-                                          int hoursNeeded, List<Event> events) {
-        LocalDateTime currentTime = dayStart;
-        
-        // Filter events to only those that overlap with this day
-        List<Event> dayEvents = new ArrayList<>();
-        for (Event event : events) {
-            LocalDateTime eventStart = event.getFrom();
-            LocalDateTime eventEnd = event.getTo();
-            
-            // Check if event overlaps with the day
-            if (!(eventEnd.isBefore(dayStart) || eventStart.isAfter(dayEnd))) {
-                dayEvents.add(event);
-            }
-        }
-        
-        // Sort events by start time
-        dayEvents.sort((e1, e2) -> e1.getFrom().compareTo(e2.getFrom()));
-        
-        // Check time slots between events
-        for (Event event : dayEvents) {
-            LocalDateTime eventStart = event.getFrom().isAfter(dayStart) ? event.getFrom() : dayStart;
-            
-            long availableHours = java.time.Duration.between(currentTime, eventStart).toHours();
-            
-            if (availableHours >= hoursNeeded) {
-                return new FreeTimeSlot(currentTime, currentTime.plusHours(hoursNeeded));
-            }
-            
-            currentTime = event.getTo().isAfter(currentTime) ? event.getTo() : currentTime;
-            if (currentTime.isAfter(dayEnd)) {
-                break;
-            }
+    /**
+     * Finds the earliest free slots that are long enough, looking from a given time.
+     * 
+     * The events are kept in a {@link MinuteCalendar}, built the first time it's needed and
+     * kept up to date as tasks come and go, so the search just scans its bitmaps for runs
+     * of free minutes. Results are also remembered in a {@link FreeTimeCache} until an
+     * event changes or the clock moves on to the next minute.
+     * 
+     * @param query how long the slots must be, how many you want, and when to look
+     * @param searchStart when to start looking (its date is the first day searched)
+     * @return up to the requested number of free slots, earliest first
+     */
+    List<FreeTimeSlot> findFreeTimes(FreeTimeQuery query, LocalDateTime searchStart) {
+        List<FreeTimeSlot> slots = freeTimeCache.get(query, searchStart);
+        if (slots == null) {
+            slots = freeTimeCache.put(query, searchStart, getCalendar().findFreeTimes(query, searchStart));
         }
-        
-        // Check remaining time after all events
-        if (currentTime.isBefore(dayEnd)) {
-            long remainingHours = java.time.Duration.between(currentTime, dayEnd).toHours();
-            if (remainingHours >= hoursNeeded) {
-                return new FreeTimeSlot(currentTime, currentTime.plusHours(hoursNeeded));
+        return slots;
+    }
+
+    /**
+     * Tells you how many free-time searches were answered from remembered results.
+     * 
+     * @return the number of cache hits so far
+     */
+    public long getFreeTimeCacheHits() {
+        return freeTimeCache.getHitCount();
+    }
+
+    /**
+     * Tells you how many free-time searches had to look through the schedule.
+     * 
+     * @return the number of cache misses so far
+     */
+    public long getFreeTimeCacheMisses() {
+        return freeTimeCache.getMissCount();
+    }
+
+    private MinuteCalendar getCalendar() {
+        if (calendar == null) {
+            eventTree = new IntervalTree();
+            calendar = new MinuteCalendar(eventTree);
+            for (Task task : tasks) {
+                if (task instanceof Event) {
+                    eventTree.add((Event) task);
+                    calendar.add((Event) task);
+                }
             }
         }
-        
-        return null;
+        return calendar;
     }
-}
\ No newline at end of file
+}
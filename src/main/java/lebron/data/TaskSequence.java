@@ -0,0 +1,340 @@
+package lebron.data;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import lebron.task.Task;
+
+/**
+ * The tasks of a {@link TaskList}, in order, as a list that is quick to change anywhere.
+ *
+ * An {@code ArrayList} has to shift every later task when one near the front is removed,
+ * which gets slow with a million tasks. Here the tasks sit in a balanced (AVL) binary tree
+ * ordered by position, where each node remembers how many tasks its subtree holds. Getting,
+ * replacing, inserting or removing the task at a position then takes O(log n): walking down,
+ * the subtree sizes say whether the position is to the left or the right.
+ *
+ * Tasks also keep their ids, and a map from id to tree node lets you find a task by id in
+ * O(1) and its current position in O(log n), by walking back up to the root.
+ *
+ * Iterating goes from node to node and takes O(n) for the whole list. Null tasks are
+ * allowed, like in an {@code ArrayList}; they just can't be found by id.
+ */
+class TaskSequence extends AbstractList<Task> {
+    private final Map<Integer, Node> nodesById = new HashMap<>();
+    private Node root;
+
+    private static class Node {
+        private Task task;
+        private Node left;
+        private Node right;
+        private Node parent;
+        private int height = 1;
+        private int size = 1;
+
+        Node(Task task) {
+            this.task = task;
+        }
+    }
+
+    /**
+     * Creates an empty sequence.
+     */
+    TaskSequence() {
+    }
+
+    /**
+     * Creates a sequence holding the given tasks, in the same order.
+     *
+     * The tree is built already balanced, in O(n).
+     *
+     * @param tasks the tasks to start with
+     */
+    TaskSequence(Collection<Task> tasks) {
+        Node[] nodes = new Node[tasks.size()];
+        int i = 0;
+        for (Task task : tasks) {
+            nodes[i] = new Node(task);
+            register(nodes[i]);
+            i++;
+        }
+        root = build(nodes, 0, nodes.length);
+    }
+
+    private static Node build(Node[] nodes, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = nodes[middle];
+        node.left = build(nodes, from, middle);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        return nodeAt(index).task;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Node node = nodeAt(index);
+        Task oldTask = node.task;
+        unregister(node);
+        node.task = task;
+        register(node);
+        return oldTask;
+    }
+
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = new Node(task);
+        register(node);
+        root = insert(root, index, node);
+        root.parent = null;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Node node = nodeAt(index);
+        unregister(node);
+        root = delete(root, index);
+        if (root != null) {
+            root.parent = null;
+        }
+        modCount++;
+        return node.task;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        nodesById.clear();
+        modCount++;
+    }
+
+    /**
+     * Finds a task by its id.
+     *
+     * @param id the id to look for
+     * @return the task with that id, or null if there is none
+     */
+    Task getById(int id) {
+        Node node = nodesById.get(id);
+        return (node == null) ? null : node.task;
+    }
+
+    /**
+     * Finds where the task with the given id is right now.
+     *
+     * @param id the id to look for
+     * @return the task's position, or -1 if there is no task with that id
+     */
+    int indexOfId(int id) {
+        Node node = nodesById.get(id);
+        if (node == null) {
+            return -1;
+        }
+        int index = size(node.left);
+        for (Node child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.right == child) {
+                index += size(parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private Node next = first(root);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node node = next;
+                next = successor(node);
+                return node.task;
+            }
+        };
+    }
+
+    private void register(Node node) {
+        if (node.task != null) {
+            nodesById.put(node.task.getId(), node);
+        }
+    }
+
+    private void unregister(Node node) {
+        if (node.task != null) {
+            nodesById.remove(node.task.getId(), node);
+        }
+    }
+
+    private Node nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private static Node first(Node node) {
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static Node successor(Node node) {
+        if (node.right != null) {
+            return first(node.right);
+        }
+        Node child = node;
+        Node parent = node.parent;
+        while (parent != null && parent.right == child) {
+            child = parent;
+            parent = parent.parent;
+        }
+        return parent;
+    }
+
+    private static Node insert(Node node, int index, Node newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            node.left = insert(node.left, index, newNode);
+        } else {
+            node.right = insert(node.right, index - leftSize - 1, newNode);
+        }
+        return rebalance(node);
+    }
+
+    private static Node delete(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            node.left = delete(node.left, index);
+        } else if (index > leftSize) {
+            node.right = delete(node.right, index - leftSize - 1);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = first(node.right);
+            successor.right = deleteFirst(node.right);
+            successor.left = node.left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private static Node deleteFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteFirst(node.left);
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node newTop = node.left;
+        node.left = newTop.right;
+        newTop.right = node;
+        update(node);
+        update(newTop);
+        return newTop;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node newTop = node.right;
+        node.right = newTop.left;
+        newTop.left = node;
+        update(node);
+        update(newTop);
+        return newTop;
+    }
+
+    /**
+     * Recomputes a node's height and size from its children, and points them back at it.
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static int height(Node node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+}
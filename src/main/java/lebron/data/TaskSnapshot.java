@@ -0,0 +1,270 @@
+package lebron.data;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import lebron.task.Task;
+
+/**
+ * The tasks of a {@link TaskList} as they were at one moment, which never changes afterwards,
+ * so any number of threads can read it without locks (see {@link ConcurrentTaskList} and
+ * {@link TaskEngine}).
+ *
+ * The tasks sit in a balanced (AVL) tree ordered by position, like in {@link TaskSequence},
+ * except that its nodes are never changed: a change copies just the nodes on the path from
+ * the root to the changed position and shares everything else with the previous version.
+ * Every change therefore makes a new snapshot in O(log n) time and space, and taking a
+ * snapshot is just reading a reference.
+ *
+ * The snapshot fixes which tasks there are and in what order. The tasks themselves are the
+ * same objects the list holds, so a task marked done after the snapshot was taken shows
+ * up as done in it too.
+ */
+public final class TaskSnapshot extends AbstractList<Task> {
+    private final Node root;
+    private final long version;
+
+    private static final class Node {
+        private final Task task;
+        private final Node left;
+        private final Node right;
+        private final int height;
+        private final int size;
+
+        Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.size = 1 + size(left) + size(right);
+        }
+    }
+
+    private TaskSnapshot(Node root, long version) {
+        this.root = root;
+        this.version = version;
+    }
+
+    /**
+     * Makes a snapshot holding the given tasks, in O(n).
+     *
+     * @param tasks the tasks, in order
+     * @param version the version number of the new snapshot
+     * @return the snapshot
+     */
+    static TaskSnapshot of(List<Task> tasks, long version) {
+        Task[] array = tasks.toArray(new Task[0]);
+        return new TaskSnapshot(build(array, 0, array.length), version);
+    }
+
+    private static Node build(Task[] tasks, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(tasks[middle], build(tasks, from, middle), build(tasks, middle + 1, to));
+    }
+
+    /**
+     * Gets a new snapshot with a task inserted at the given position.
+     */
+    TaskSnapshot withAdded(int index, Task task) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new TaskSnapshot(insert(root, index, task), version + 1);
+    }
+
+    /**
+     * Gets a new snapshot with the task at the given position replaced.
+     */
+    TaskSnapshot withReplaced(int index, Task task) {
+        checkIndex(index);
+        return new TaskSnapshot(replace(root, index, task), version + 1);
+    }
+
+    /**
+     * Gets a new snapshot without the task at the given position.
+     */
+    TaskSnapshot withRemoved(int index) {
+        checkIndex(index);
+        return new TaskSnapshot(delete(root, index), version + 1);
+    }
+
+    /**
+     * Gets a new snapshot with the same tasks and the next version number, for changes
+     * that happened inside the tasks themselves.
+     */
+    TaskSnapshot withNextVersion() {
+        return new TaskSnapshot(root, version + 1);
+    }
+
+    /**
+     * Tells you which version of the list this is. Every change to the list makes a new
+     * version, numbered one higher than the last.
+     *
+     * @return the version number
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public Task get(int index) {
+        checkIndex(index);
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.task;
+            }
+        }
+    }
+
+    /**
+     * Finds the tasks whose description contains the keyword, ignoring case.
+     *
+     * This reads every description, but without taking any locks, so it can run on as many
+     * threads as you like while the list keeps changing.
+     *
+     * @param keyword what to search for
+     * @return the matching tasks, in list order (empty list if no matches or invalid keyword)
+     */
+    public List<Task> findTasks(String keyword) {
+        List<Task> matches = new ArrayList<>();
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return matches;
+        }
+        String lowercaseKeyword = keyword.trim().toLowerCase();
+        for (Task task : this) {
+            if (task != null && task.getDescription().toLowerCase().contains(lowercaseKeyword)) {
+                matches.add(task);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new Iterator<>() {
+            private final Deque<Node> path = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(Node node) {
+                for (; node != null; node = node.left) {
+                    path.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !path.isEmpty();
+            }
+
+            @Override
+            public Task next() {
+                if (path.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node node = path.pop();
+                pushLeft(node.right);
+                return node.task;
+            }
+        };
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+    }
+
+    private static Node insert(Node node, int index, Task task) {
+        if (node == null) {
+            return new Node(task, null, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.task, insert(node.left, index, task), node.right);
+        }
+        return balance(node.task, node.left, insert(node.right, index - leftSize - 1, task));
+    }
+
+    private static Node replace(Node node, int index, Task task) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node(node.task, replace(node.left, index, task), node.right);
+        } else if (index > leftSize) {
+            return new Node(node.task, node.left, replace(node.right, index - leftSize - 1, task));
+        }
+        return new Node(task, node.left, node.right);
+    }
+
+    private static Node delete(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.task, delete(node.left, index), node.right);
+        } else if (index > leftSize) {
+            return balance(node.task, node.left, delete(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node first = node.right;
+        while (first.left != null) {
+            first = first.left;
+        }
+        return balance(first.task, node.left, delete(node.right, 0));
+    }
+
+    /**
+     * Makes a node from a task and two subtrees whose heights differ by at most two,
+     * rotating if needed to keep it balanced.
+     */
+    private static Node balance(Task task, Node left, Node right) {
+        int difference = height(left) - height(right);
+        if (difference > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.task, left.left, new Node(task, left.right, right));
+            }
+            return new Node(left.right.task, new Node(left.task, left.left, left.right.left),
+                    new Node(task, left.right.right, right));
+        }
+        if (difference < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.task, new Node(task, left, right.left), right.right);
+            }
+            return new Node(right.left.task, new Node(task, left, right.left.left),
+                    new Node(right.task, right.left.right, right.right));
+        }
+        return new Node(task, left, right);
+    }
+
+    private static int height(Node node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return (node == null) ? 0 : node.size;
+    }
+}
@@ -0,0 +1,157 @@
+package lebron.data;
+
+import java.util.Arrays;
+
+/**
+ * A trigram index that answers "which texts contain this substring?" for substrings of
+ * three characters or more, wherever they sit inside a word.
+ *
+ * Every text is known by an int slot, and each run of three characters in it (spaces and
+ * punctuation included) is hashed into one of a fixed number of buckets. A bucket holds
+ * the sorted slots of the texts that have one of its trigrams, as a plain int array. A
+ * lookup intersects the buckets of the query's trigrams, smallest first.
+ *
+ * Two trigrams can land in the same bucket, so a slot that comes back is only a
+ * candidate; the caller still has to check it. A slot that doesn't come back can never
+ * match, which is what makes the lookup worth it.
+ */
+class TrigramIndex {
+    private static final int BUCKET_BITS = 18;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final int[][] buckets = new int[1 << BUCKET_BITS][];
+    private final int[] bucketSizes = new int[1 << BUCKET_BITS];
+
+    /**
+     * Adds a text under the given slot.
+     *
+     * @param slot the slot of the text; adding slots in increasing order is fastest
+     * @param text the lowercased text
+     */
+    void add(int slot, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            int bucket = bucketOf(text, i);
+            int size = bucketSizes[bucket];
+            int[] slots = buckets[bucket];
+            if (size > 0 && slots[size - 1] == slot) {
+                continue;
+            }
+            if (size == 0 || slots[size - 1] < slot) {
+                append(bucket, slot);
+            } else {
+                int index = Arrays.binarySearch(slots, 0, size, slot);
+                if (index < 0) {
+                    insert(bucket, -(index + 1), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a text that was added under the given slot.
+     *
+     * @param slot the slot of the text
+     * @param text the lowercased text, exactly as it was added
+     */
+    void remove(int slot, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            int bucket = bucketOf(text, i);
+            int size = bucketSizes[bucket];
+            int index = (size > 0) ? Arrays.binarySearch(buckets[bucket], 0, size, slot) : -1;
+            if (index >= 0) {
+                int[] slots = buckets[bucket];
+                System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+                bucketSizes[bucket] = size - 1;
+            }
+        }
+    }
+
+    /**
+     * Finds the slots of the texts that may contain the query.
+     *
+     * @param query the lowercased query, at least three characters long
+     * @return the candidate slots, in increasing order
+     */
+    int[] find(String query) {
+        int trigramCount = query.length() - 2;
+        int[] queryBuckets = new int[trigramCount];
+        for (int i = 0; i < trigramCount; i++) {
+            queryBuckets[i] = bucketOf(query, i);
+        }
+        // Smallest buckets first, so the candidates shrink as early as possible
+        for (int i = 1; i < trigramCount; i++) {
+            int bucket = queryBuckets[i];
+            int j = i;
+            for (; j > 0 && bucketSizes[queryBuckets[j - 1]] > bucketSizes[bucket]; j--) {
+                queryBuckets[j] = queryBuckets[j - 1];
+            }
+            queryBuckets[j] = bucket;
+        }
+
+        int smallest = queryBuckets[0];
+        int[] candidates = Arrays.copyOf(nonNull(buckets[smallest]), bucketSizes[smallest]);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < trigramCount && candidateCount > 0; i++) {
+            int bucket = queryBuckets[i];
+            if (bucket != queryBuckets[i - 1]) {
+                candidateCount = retainAll(candidates, candidateCount, buckets[bucket], bucketSizes[bucket]);
+            }
+        }
+        return Arrays.copyOf(candidates, candidateCount);
+    }
+
+    /**
+     * Keeps only the candidates that are also in the given bucket.
+     *
+     * Candidates are few by now, so each one is looked up with a binary search that starts
+     * where the previous one was found, rather than walking the whole bucket.
+     *
+     * @return how many candidates are left, packed at the front of the array
+     */
+    private static int retainAll(int[] candidates, int candidateCount, int[] slots, int size) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < candidateCount && from < size; i++) {
+            int index = Arrays.binarySearch(slots, from, size, candidates[i]);
+            if (index >= 0) {
+                candidates[kept++] = candidates[i];
+                from = index + 1;
+            } else {
+                from = -(index + 1);
+            }
+        }
+        return kept;
+    }
+
+    private void append(int bucket, int slot) {
+        int size = bucketSizes[bucket];
+        int[] slots = buckets[bucket];
+        if (slots == null) {
+            slots = new int[4];
+        } else if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size] = slot;
+        buckets[bucket] = slots;
+        bucketSizes[bucket] = size + 1;
+    }
+
+    private void insert(int bucket, int index, int slot) {
+        append(bucket, slot);
+        int[] slots = buckets[bucket];
+        System.arraycopy(slots, index, slots, index + 1, bucketSizes[bucket] - index - 1);
+        slots[index] = slot;
+    }
+
+    private static int[] nonNull(int[] slots) {
+        return (slots != null) ? slots : NO_SLOTS;
+    }
+
+    private static int bucketOf(String text, int start) {
+        int hash = text.charAt(start);
+        hash = hash * 0x9E3779B1 + text.charAt(start + 1);
+        hash = hash * 0x9E3779B1 + text.charAt(start + 2);
+        hash *= 0x9E3779B1;
+        return hash >>> (32 - BUCKET_BITS);
+    }
+}
@@ -1,13 +1,19 @@
 package lebron.gui;
 
 import javafx.scene.control.TextArea;
+import lebron.storage.FlushPolicy;
 import lebron.storage.Storage;
+import lebron.storage.TaskFileWatcher;
+import lebron.storage.TaskStore;
+import lebron.data.TaskEngine;
 import lebron.data.TaskList;
+import lebron.data.FreeTimeQuery;
 import lebron.data.FreeTimeSlot;
 import lebron.ui.GuiUi;
 import lebron.parser.Parser;
 import lebron.task.*;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * GUI version of the Lebron chatbot that works with JavaFX interface.
@@ -16,40 +22,56 @@ import java.util.List;
  * but is designed to work with a GUI TextArea instead of console input/output.
  */
 public class GuiLebron {
-    private final Storage storage;
-    private TaskList tasks;
+    private static final FlushPolicy FLUSH_POLICY = FlushPolicy.everyMillis(500);
+    private static final int RANK_RESULT_LIMIT = 10;
+
+    private final TaskStore storage;
+    private final TaskFileWatcher watcher;
+    private final TaskEngine engine;
     private final GuiUi ui;
 
     /**
      * Creates a new GUI Lebron chatbot instance.
      * 
-     * @param filePath the path to the file for storing tasks
+     * @param filePath the path to the file (or segment folder) for storing tasks
      * @param chatHistory the TextArea component for displaying chat history
      */
     public GuiLebron(String filePath, TextArea chatHistory) {
         ui = new GuiUi(chatHistory);
-        storage = new Storage(filePath);
+        storage = Storage.open(filePath, FLUSH_POLICY);
+        TaskList tasks;
         try {
             tasks = new TaskList(storage.load());
         } catch (Exception e) {
             ui.showError("Error loading tasks: " + e.getMessage());
             tasks = new TaskList();
         }
+        engine = new TaskEngine(tasks);
+        watcher = (storage instanceof Storage) ? new TaskFileWatcher((Storage) storage) : null;
+        if (watcher != null) {
+            watcher.start();
+        }
         ui.showWelcome();
     }
 
     /**
      * Processes a single command from the GUI and returns the response.
      * 
+     * Parsing and showing the response happen on the calling (JavaFX) thread, while every
+     * look at or change to the task list is handed to a {@link TaskEngine}, which runs them
+     * one at a time on its own thread. Listing just shows the engine's latest snapshot.
+     * 
      * @param input the user's input command
      * @return true if the command was "bye" (indicating the user wants to exit)
      */
     public boolean processCommand(String input) {
         try {
+            applyExternalChanges();
             Parser.Command command = Parser.parse(input);
             
             switch (command.getType()) {
                 case BYE:
+                    shutdown();
                     ui.showGoodbye();
                     return true; // Signal to exit
                 case LIST:
@@ -76,6 +98,9 @@ public class GuiLebron {
                 case FIND:
                     handleFind(command.getArgument());
                     break;
+                case RANK:
+                    handleRank(command.getArgument());
+                    break;
                 case FREETIME:
                     handleFreeTime(command.getArgument());
                     break;
@@ -89,8 +114,47 @@ public class GuiLebron {
         return false; // Continue running
     }
 
+    /**
+     * Makes sure every change has reached the disk before the window goes away.
+     * 
+     * Safe to call more than once, e.g. after "bye" and again when the window closes.
+     */
+    public void shutdown() {
+        stopWatching();
+        try {
+            engine.call(list -> {
+                storage.saveChanges(list);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            // Already shut down, and saved back then
+        }
+        engine.close();
+        storage.close();
+    }
+
+    /**
+     * Brings the task list up to date with any changes made to the data file elsewhere,
+     * e.g. by a sync tool, before the next command looks at it.
+     */
+    private void applyExternalChanges() {
+        if (watcher == null) {
+            return;
+        }
+        int changeCount = engine.call(watcher::applyExternalChanges);
+        if (changeCount > 0) {
+            ui.showExternalChanges(changeCount);
+        }
+    }
+
+    private void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
     private void handleList() {
-        ui.showTaskList(tasks.getAllTasks());
+        ui.showTaskList(engine.snapshot());
     }
 
     private void handleTodo(String description) {
@@ -99,10 +163,19 @@ public class GuiLebron {
             return;
         }
         
-        Todo todo = new Todo(description);
-        tasks.add(todo);
-        saveToStorage();
-        ui.showTaskAdded(todo, tasks.size());
+        addTask(new Todo(description));
+    }
+
+    /**
+     * Adds a task on the engine's writer thread, records it in storage, and shows it.
+     */
+    private void addTask(Task task) {
+        engine.call(list -> {
+            list.add(task);
+            storage.recordAdded(task);
+            return task;
+        });
+        ui.showTaskAdded(task, engine.snapshot().size());
     }
 
     private void handleDeadline(String input) {
@@ -144,10 +217,7 @@ public class GuiLebron {
     
     private void createAndAddDeadline(String description, String by) {
         try {
-            Deadline deadline = new Deadline(description, by);
-            tasks.add(deadline);
-            saveToStorage();
-            ui.showTaskAdded(deadline, tasks.size());
+            addTask(new Deadline(description, by));
         } catch (IllegalArgumentException e) {
             ui.showError(e.getMessage());
         }
@@ -214,10 +284,7 @@ public class GuiLebron {
     
     private void createAndAddEvent(String description, String from, String to) {
         try {
-            Event event = new Event(description, from, to);
-            tasks.add(event);
-            saveToStorage();
-            ui.showTaskAdded(event, tasks.size());
+            addTask(new Event(description, from, to));
         } catch (IllegalArgumentException e) {
             ui.showError(e.getMessage());
         }
@@ -236,28 +303,27 @@ public class GuiLebron {
     }
 
     private void handleMark(String indexStr) {
-        withValidTaskIndex(indexStr, "mark", (index, task) -> {
-            tasks.markTask(index, true);
-            saveToStorage();
-            ui.showTaskMarked(task);
+        withValidTaskIndex(indexStr, "mark", (list, index, task) -> {
+            list.markTask(index, true);
+            storage.recordMarked(task);
+            return () -> ui.showTaskMarked(task);
         });
     }
 
     private void handleUnmark(String indexStr) {
-        withValidTaskIndex(indexStr, "unmark", (index, task) -> {
-            tasks.markTask(index, false);
-            saveToStorage();
-            ui.showTaskUnmarked(task);
+        withValidTaskIndex(indexStr, "unmark", (list, index, task) -> {
+            list.markTask(index, false);
+            storage.recordMarked(task);
+            return () -> ui.showTaskUnmarked(task);
         });
     }
 
     private void handleDelete(String indexStr) {
-        withValidTaskIndex(indexStr, "delete", (index, task) -> {
-            Task deletedTask = tasks.delete(index);
-            if (deletedTask != null) {
-                saveToStorage();
-                ui.showTaskDeleted(deletedTask, tasks.size());
-            }
+        withValidTaskIndex(indexStr, "delete", (list, index, task) -> {
+            Task deletedTask = list.delete(index);
+            storage.recordDeleted(deletedTask);
+            int taskCount = list.size();
+            return () -> ui.showTaskDeleted(deletedTask, taskCount);
         });
     }
 
@@ -267,29 +333,47 @@ public class GuiLebron {
             return;
         }
         
-        List<Task> matchingTasks = tasks.findTasks(keyword);
+        // "find ~word" asks for a typo-tolerant search,
+        // "find /regex/" and "find a*b" for a pattern search
+        String trimmedKeyword = keyword.trim();
+        List<Task> matchingTasks;
+        try {
+            if (trimmedKeyword.startsWith("~") && trimmedKeyword.length() > 1) {
+                matchingTasks = engine.call(list -> list.findSimilarTasks(trimmedKeyword.substring(1)));
+            } else if (TaskList.isPattern(trimmedKeyword)) {
+                matchingTasks = engine.call(list -> list.findTasksMatching(trimmedKeyword));
+            } else {
+                matchingTasks = engine.call(list -> list.findTasks(keyword));
+            }
+        } catch (IllegalArgumentException e) {
+            ui.showError(e.getMessage());
+            return;
+        }
         ui.showFindResults(matchingTasks, keyword);
     }
 
-    private void handleFreeTime(String hoursStr) {
-        if (hoursStr.trim().isEmpty()) {
-            ui.showError("Please specify how many hours you need.\\nUse: freetime <hours>");
+    private void handleRank(String query) {
+        if (query.trim().isEmpty()) {
+            ui.showError("Please specify some words to search for.\\nUse: rank <words>");
+            return;
+        }
+
+        List<Task> bestTasks = engine.call(list -> list.rankTasks(query, RANK_RESULT_LIMIT));
+        ui.showRankedResults(bestTasks, query);
+    }
+
+    private void handleFreeTime(String argument) {
+        if (argument.trim().isEmpty()) {
+            ui.showError("Please specify how much time you need.\\nUse: freetime <duration> [/count <slots>] [/days <days>] [/hours <start>-<end>]");
             return;
         }
         
         try {
-            int hoursNeeded = Integer.parseInt(hoursStr.trim());
-            
-            if (hoursNeeded <= 0) {
-                ui.showError("Please specify a positive number of hours.\\nUse: freetime <hours>");
-                return;
-            }
-            
-            FreeTimeSlot freeSlot = tasks.findNextFreeTime(hoursNeeded);
-            ui.showFreeTimeResult(freeSlot, hoursNeeded);
-            
-        } catch (NumberFormatException e) {
-            ui.showError("That's not a valid number of hours.\\nPlease provide a number (e.g., freetime 4)");
+            FreeTimeQuery query = FreeTimeQuery.parse(argument);
+            List<FreeTimeSlot> freeSlots = engine.call(list -> list.findFreeTimes(query));
+            ui.showFreeTimeResults(freeSlots, query);
+        } catch (IllegalArgumentException e) {
+            ui.showError(e.getMessage() + "\\nPlease use a format like: freetime 90m /count 5 /days 60");
         }
     }
 
@@ -301,10 +385,13 @@ public class GuiLebron {
         
         try {
             int index = Integer.parseInt(indexStr.trim()) - 1;
-            Task task = tasks.get(index);
+            Runnable showResult = engine.call(list -> {
+                Task task = list.get(index);
+                return (task != null) ? operation.execute(list, index, task) : null;
+            });
             
-            if (task != null) {
-                operation.execute(index, task);
+            if (showResult != null) {
+                showResult.run();
             } else {
                 ui.showError("I don't have a task with that number.\\nUse 'list' to see your tasks first.");
             }
@@ -313,12 +400,12 @@ public class GuiLebron {
         }
     }
     
+    /**
+     * Something to do to one task, run on the engine's writer thread. It returns what to show
+     * afterwards, which is then run on the calling thread.
+     */
     @FunctionalInterface
     private interface TaskOperation {
-        void execute(int index, Task task);
-    }
-
-    private void saveToStorage() {
-        storage.save(tasks.getAllTasks());
+        Runnable execute(TaskList list, int index, Task task);
     }
 }
\ No newline at end of file
@@ -128,6 +128,7 @@ public class MainWindow extends Application {
         
         // Handle window close event
         stage.setOnCloseRequest(e -> {
+            lebron.shutdown();
             Platform.exit();
             System.exit(0);
         });
@@ -214,6 +215,7 @@ public class MainWindow extends Application {
                     } catch (InterruptedException e) {
                         Thread.currentThread().interrupt();
                     }
+                    lebron.shutdown();
                     Platform.exit();
                     System.exit(0);
                 });
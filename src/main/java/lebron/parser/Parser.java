@@ -16,7 +16,7 @@ public class Parser {
      * If we don't recognize something, it gets labeled as UNKNOWN.
      */
     public enum CommandType {
-        TODO, DEADLINE, EVENT, LIST, MARK, UNMARK, DELETE, FIND, FREETIME, BYE, UNKNOWN
+        TODO, DEADLINE, EVENT, LIST, MARK, UNMARK, DELETE, FIND, RANK, FREETIME, BYE, UNKNOWN
     }
 
     /**
@@ -103,6 +103,9 @@ public class Parser {
         Command findCommand = parseCommandWithKeyword(trimmed, "find", CommandType.FIND);
         if (findCommand != null) return findCommand;
 
+        Command rankCommand = parseCommandWithKeyword(trimmed, "rank", CommandType.RANK);
+        if (rankCommand != null) return rankCommand;
+
         Command freetimeCommand = parseCommandWithKeyword(trimmed, "freetime", CommandType.FREETIME);
         if (freetimeCommand != null) return freetimeCommand;
 
@@ -0,0 +1,540 @@
+package lebron.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import lebron.task.*;
+
+/**
+ * The compact binary layout (version 2) used for Lebron's data file.
+ *
+ * The file starts with a small header - the magic bytes {@code LBRN}, a version byte and a
+ * flags byte - followed by blocks of records. Each block is its record count and byte length
+ * (both varints) and then the records themselves, so a loader can hop from block to block
+ * and decode them independently.
+ *
+ * Every record is:
+ * - a tag byte: the task type in the low two bits, a "deleted" bit and the done flag in the top bit
+ * - the task id as a varint
+ * - the description as a varint length followed by its UTF-8 bytes
+ * - the deadline, or the event start and end, as zigzag varint epoch seconds (UTC)
+ *
+ * Compared to the old pipe-separated text, dates are a few bytes instead of a 19 character
+ * string, and loading never has to go through {@code LocalDateTime.parse}.
+ *
+ * Because the done flag lives in a byte at a known offset, marking a task can be saved by
+ * overwriting that single byte. Deleting a task sets its "deleted" bit the same way, and
+ * new or otherwise changed tasks are appended as an extra block at the end (see
+ * {@link #indexRecords} and {@link #encodeBlock}).
+ *
+ * If the {@link #FLAG_COMPRESSED} flag is set, every block is deflated on its own: the
+ * block header gains a third varint, the uncompressed length, and the stored length is
+ * that of the deflated bytes. Each block can still be found and inflated without touching
+ * the others, so loading stays streaming and parallel. Records inside a compressed block
+ * have no fixed offset, though, so compressed files can't be updated in place.
+ */
+public class BinaryTaskFormat {
+    static final byte[] MAGIC = {'L', 'B', 'R', 'N'};
+    static final byte VERSION = 2;
+    static final int HEADER_BYTES = MAGIC.length + 2;
+    static final int RECORDS_PER_BLOCK = 4096;
+    static final int FLAG_COMPRESSED = 0x01;
+
+    static final int TYPE_TODO = 0;
+    static final int TYPE_DEADLINE = 1;
+    static final int TYPE_EVENT = 2;
+    static final int TYPE_MASK = 0x03;
+    static final int DELETED_BIT = 0x40;
+    static final int DONE_BIT = 0x80;
+
+    private BinaryTaskFormat() {
+    }
+
+    /**
+     * Checks if the given bytes start with a version 2 header.
+     *
+     * @param header the first bytes of a file (at least {@link #HEADER_BYTES} of them)
+     * @param length how many of those bytes are valid
+     * @return true if this is a binary task file we know how to read
+     */
+    public static boolean hasHeader(byte[] header, int length) {
+        if (length < HEADER_BYTES) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return header[MAGIC.length] == VERSION;
+    }
+
+    /**
+     * Writes the header and all tasks, in list order.
+     *
+     * @param tasks the tasks to write (null entries are skipped)
+     * @param out where to write them
+     * @throws IOException if writing fails
+     */
+    public static void write(List<Task> tasks, OutputStream out) throws IOException {
+        write(tasks, out, false);
+    }
+
+    /**
+     * Writes the header and all tasks, in list order, optionally deflating each block.
+     *
+     * @param tasks the tasks to write (null entries are skipped)
+     * @param out where to write them
+     * @param isCompressed true to write a compressed file
+     * @throws IOException if writing fails
+     */
+    public static void write(List<Task> tasks, OutputStream out, boolean isCompressed) throws IOException {
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(isCompressed ? FLAG_COMPRESSED : 0);
+
+        List<Task> block = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task == null) {
+                continue;
+            }
+            block.add(task);
+            if (block.size() == RECORDS_PER_BLOCK) {
+                out.write(isCompressed ? encodeCompressedBlock(block) : encodeBlock(block, null));
+                block.clear();
+            }
+        }
+        if (!block.isEmpty()) {
+            out.write(isCompressed ? encodeCompressedBlock(block) : encodeBlock(block, null));
+        }
+    }
+
+    /**
+     * Gets the flags byte from a header that {@link #hasHeader} accepted.
+     *
+     * @param header the first bytes of the file
+     * @return the header flags, such as {@link #FLAG_COMPRESSED}
+     */
+    static int flagsOf(byte[] header) {
+        return header[MAGIC.length + 1] & 0xFF;
+    }
+
+    /**
+     * Encodes one block (header and records) holding the given tasks.
+     *
+     * @param tasks the tasks to put in the block
+     * @param recordOffsets if not null, filled with where each record starts, counted from
+     *                      the start of the block
+     * @return the encoded block
+     */
+    static byte[] encodeBlock(List<Task> tasks, long[] recordOffsets) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (recordOffsets != null) {
+                recordOffsets[i] = payload.size();
+            }
+            writeRecord(tasks.get(i), payload);
+        }
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        writeVarLong(tasks.size(), block);
+        writeVarLong(payload.size(), block);
+        int headerLength = block.size();
+        block.writeBytes(payload.toByteArray());
+
+        if (recordOffsets != null) {
+            for (int i = 0; i < tasks.size(); i++) {
+                recordOffsets[i] += headerLength;
+            }
+        }
+        return block.toByteArray();
+    }
+
+    /**
+     * Encodes one deflated block holding the given tasks.
+     *
+     * @param tasks the tasks to put in the block
+     * @return the encoded block: record count, deflated length, raw length, deflated records
+     */
+    static byte[] encodeCompressedBlock(List<Task> tasks) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        for (Task task : tasks) {
+            writeRecord(task, payload);
+        }
+        byte[] raw = payload.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            deflated.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream(deflated.size() + 16);
+        writeVarLong(tasks.size(), block);
+        writeVarLong(deflated.size(), block);
+        writeVarLong(raw.length, block);
+        block.writeBytes(deflated.toByteArray());
+        return block.toByteArray();
+    }
+
+    /**
+     * Inflates the stored bytes of one compressed block.
+     *
+     * @param stored the deflated bytes, from its position to its limit
+     * @param rawLength how long the block is once inflated
+     * @return the inflated record bytes
+     * @throws IOException if the bytes aren't valid deflate data
+     */
+    static ByteBuffer inflate(ByteBuffer stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            return ByteBuffer.wrap(raw, 0, length);
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged compressed block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Gets the tag byte a task would be stored with.
+     *
+     * @param task the task
+     * @return its type and done flag packed into one byte
+     */
+    static int tagOf(Task task) {
+        int type = (task instanceof Deadline) ? TYPE_DEADLINE : (task instanceof Event) ? TYPE_EVENT : TYPE_TODO;
+        return type | (task.isDone() ? DONE_BIT : 0);
+    }
+
+    /**
+     * Encodes a single record, exactly as it would be stored in a block. The first byte
+     * is the tag and the rest is the record's body.
+     *
+     * @param task the task to encode
+     * @return the encoded record
+     */
+    static byte[] encodeRecord(Task task) {
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        writeRecord(task, record);
+        return record.toByteArray();
+    }
+
+    /**
+     * Checks if two tasks would be stored as exactly the same record, done flag included.
+     *
+     * @param first one task
+     * @param second the other task
+     * @return true if their encoded records are byte for byte the same
+     */
+    static boolean isSameRecord(Task first, Task second) {
+        return Arrays.equals(encodeRecord(first), encodeRecord(second));
+    }
+
+    /**
+     * Reads a whole binary task file from a stream.
+     *
+     * Truncated trailing blocks are ignored, so a file cut off halfway through a write
+     * still gives back every complete block before the cut.
+     *
+     * @param in the stream, positioned at the very start of the file
+     * @param tasks the list the decoded tasks are added to
+     * @return how many deleted records were skipped along the way
+     * @throws IOException if reading fails or the header is not a version 2 header
+     */
+    public static int read(InputStream in, List<Task> tasks) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        boolean isCompressed = (readHeader(data) & FLAG_COMPRESSED) != 0;
+
+        int deletedRecords = 0;
+        int blockDeletedRecords;
+        while ((blockDeletedRecords = readBlock(data, tasks, isCompressed)) >= 0) {
+            deletedRecords += blockDeletedRecords;
+        }
+        return deletedRecords;
+    }
+
+    /**
+     * Reads and checks the file header.
+     *
+     * @param data the stream, positioned at the very start of the file
+     * @return the header flags
+     * @throws IOException if reading fails or the header is not a version 2 header
+     */
+    static int readHeader(DataInputStream data) throws IOException {
+        byte[] header = new byte[HEADER_BYTES];
+        int headerLength = data.readNBytes(header, 0, HEADER_BYTES);
+        if (!hasHeader(header, headerLength)) {
+            throw new IOException("Not a version " + VERSION + " task file");
+        }
+        return flagsOf(header);
+    }
+
+    /**
+     * Reads the next block from a stream and decodes its records.
+     *
+     * Only this one block is ever held in memory, inflated or not.
+     *
+     * @param data the stream, positioned at the start of a block
+     * @param tasks the list the decoded tasks are added to
+     * @param isCompressed true if the file has the {@link #FLAG_COMPRESSED} flag
+     * @return how many deleted records the block held, or -1 if there are no more
+     *         complete blocks
+     * @throws IOException if reading fails
+     */
+    static int readBlock(DataInputStream data, List<Task> tasks, boolean isCompressed) throws IOException {
+        int recordCount;
+        int payloadLength;
+        int rawLength;
+        try {
+            recordCount = (int) readVarLong(data);
+            payloadLength = (int) readVarLong(data);
+            rawLength = isCompressed ? (int) readVarLong(data) : payloadLength;
+        } catch (EOFException e) {
+            return -1;
+        }
+        byte[] payload = data.readNBytes(payloadLength);
+        if (payload.length < payloadLength) {
+            return -1;
+        }
+        ByteBuffer records = isCompressed ? inflate(ByteBuffer.wrap(payload), rawLength) : ByteBuffer.wrap(payload);
+        return decodeBlock(records, recordCount, tasks);
+    }
+
+    /**
+     * Decodes the records of one block.
+     *
+     * Records marked as deleted are skipped. A damaged record ends the block early;
+     * everything decoded before it is kept.
+     *
+     * @param payload the block's record bytes
+     * @param recordCount how many records the block holds
+     * @param tasks the list the decoded tasks are added to
+     * @return how many deleted records were skipped
+     */
+    static int decodeBlock(ByteBuffer payload, int recordCount, List<Task> tasks) {
+        int deletedRecords = 0;
+        try {
+            for (int i = 0; i < recordCount && payload.hasRemaining(); i++) {
+                Task task = readRecord(payload);
+                if (task != null) {
+                    tasks.add(task);
+                } else {
+                    deletedRecords++;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error parsing task block: " + e.getMessage());
+        }
+        return deletedRecords;
+    }
+
+    /**
+     * Finds where every live record of a file is stored, without building any tasks.
+     *
+     * Scanning stops at the first damaged block, and the returned position tells you where
+     * the readable part of the file ends. Anything appended past a damaged block would never
+     * be read back, so callers should only append when that position is the end of the file.
+     *
+     * @param channel the open task file
+     * @param index filled with the location of each live record, keyed by task id
+     * @return the position just past the last intact block
+     * @throws IOException if the file can't be read
+     */
+    static long indexRecords(FileChannel channel, Map<Integer, RecordLocation> index) throws IOException {
+        long size = channel.size();
+        long position = HEADER_BYTES;
+        ByteBuffer blockHeader = ByteBuffer.allocate(20);
+        while (position < size) {
+            blockHeader.clear();
+            channel.read(blockHeader, position);
+            blockHeader.flip();
+            long recordCount;
+            long payloadLength;
+            try {
+                recordCount = readVarLong(blockHeader);
+                payloadLength = readVarLong(blockHeader);
+            } catch (RuntimeException e) {
+                break;
+            }
+            long payloadStart = position + blockHeader.position();
+            if (payloadStart + payloadLength > size) {
+                break;
+            }
+
+            ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, payloadStart, payloadLength);
+            try {
+                for (long i = 0; i < recordCount && payload.hasRemaining(); i++) {
+                    int recordStart = payload.position();
+                    int tag = payload.get() & 0xFF;
+                    int id = (int) readVarLong(payload);
+                    int descriptionLength = (int) readVarLong(payload);
+                    skipDescriptionAndDates(payload, tag, descriptionLength);
+                    if ((tag & DELETED_BIT) == 0) {
+                        int recordLength = payload.position() - recordStart;
+                        index.put(id, new RecordLocation(payloadStart + recordStart, tag, recordLength));
+                    }
+                }
+            } catch (RuntimeException e) {
+                break;
+            }
+            position = payloadStart + payloadLength;
+        }
+        return position;
+    }
+
+    private static void writeRecord(Task task, ByteArrayOutputStream out) {
+        out.write(tagOf(task));
+        writeVarLong(task.getId(), out);
+
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        writeVarLong(description.length, out);
+        out.write(description, 0, description.length);
+
+        if (task instanceof Deadline) {
+            writeDateTime(((Deadline) task).getBy(), out);
+        } else if (task instanceof Event) {
+            writeDateTime(((Event) task).getFrom(), out);
+            writeDateTime(((Event) task).getTo(), out);
+        }
+    }
+
+    /**
+     * Reads one record, returning null (after skipping over it) if it was deleted.
+     */
+    private static Task readRecord(ByteBuffer in) {
+        int tag = in.get() & 0xFF;
+        int id = (int) readVarLong(in);
+        int descriptionLength = (int) readVarLong(in);
+        if ((tag & DELETED_BIT) != 0) {
+            skipDescriptionAndDates(in, tag, descriptionLength);
+            return null;
+        }
+        String description = readUtf8(in, descriptionLength);
+
+        Task task;
+        switch (tag & TYPE_MASK) {
+            case TYPE_TODO:
+                task = new Todo(description);
+                break;
+            case TYPE_DEADLINE:
+                task = new Deadline(description, readDateTime(in));
+                break;
+            case TYPE_EVENT:
+                LocalDateTime from = readDateTime(in);
+                task = new Event(description, from, readDateTime(in));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown task type " + (tag & TYPE_MASK));
+        }
+        task.setId(id);
+        task.setDone((tag & DONE_BIT) != 0);
+        return task;
+    }
+
+    private static void skipDescriptionAndDates(ByteBuffer in, int tag, int descriptionLength) {
+        in.position(in.position() + descriptionLength);
+        int dates = ((tag & TYPE_MASK) == TYPE_EVENT) ? 2 : ((tag & TYPE_MASK) == TYPE_DEADLINE) ? 1 : 0;
+        for (int d = 0; d < dates; d++) {
+            readVarLong(in);
+        }
+    }
+
+    private static String readUtf8(ByteBuffer in, int length) {
+        if (in.hasArray()) {
+            String text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return text;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDateTime(LocalDateTime dateTime, ByteArrayOutputStream out) {
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        writeVarLong((seconds << 1) ^ (seconds >> 63), out);
+    }
+
+    private static LocalDateTime readDateTime(ByteBuffer in) {
+        long zigzag = readVarLong(in);
+        long seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+        return LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    }
+
+    static void writeVarLong(long value, ByteArrayOutputStream out) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Where a live record sits in the file, its tag byte, and how many bytes it takes up.
+     */
+    static class RecordLocation {
+        final long offset;
+        final int tag;
+        final int length;
+
+        RecordLocation(long offset, int tag, int length) {
+            this.offset = offset;
+            this.tag = tag;
+            this.length = length;
+        }
+    }
+}
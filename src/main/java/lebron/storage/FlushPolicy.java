@@ -0,0 +1,89 @@
+package lebron.storage;
+
+/**
+ * Decides how often buffered changes are pushed out to disk.
+ *
+ * A policy flushes when either of its limits is reached: enough time has passed since the
+ * oldest unsaved change, or enough changes have piled up. Whatever is left is always
+ * flushed when the store is closed (e.g. when you say bye).
+ */
+public class FlushPolicy {
+    private final long intervalMillis;
+    private final int maxPendingMutations;
+
+    /**
+     * Creates a policy with both a time limit and a count limit.
+     *
+     * @param intervalMillis how long a change may wait before being flushed (0 for no time limit)
+     * @param maxPendingMutations how many changes may wait before being flushed
+     */
+    public FlushPolicy(long intervalMillis, int maxPendingMutations) {
+        this.intervalMillis = Math.max(0, intervalMillis);
+        this.maxPendingMutations = Math.max(1, maxPendingMutations);
+    }
+
+    /**
+     * Writes every change straight away, just like the good old synchronous days.
+     *
+     * @return a policy that never buffers anything
+     */
+    public static FlushPolicy immediate() {
+        return new FlushPolicy(0, 1);
+    }
+
+    /**
+     * Flushes at most the given number of milliseconds after a change was made.
+     *
+     * @param intervalMillis the longest a change may wait
+     * @return a time-based policy
+     */
+    public static FlushPolicy everyMillis(long intervalMillis) {
+        return new FlushPolicy(intervalMillis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Flushes once the given number of changes have piled up.
+     *
+     * @param mutations how many changes to collect before writing them out together
+     * @return a count-based policy
+     */
+    public static FlushPolicy everyMutations(int mutations) {
+        return new FlushPolicy(0, mutations);
+    }
+
+    /**
+     * Keeps everything in memory until the store is closed.
+     *
+     * @return a policy that only flushes on exit
+     */
+    public static FlushPolicy onExit() {
+        return new FlushPolicy(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets how long a change may wait before being flushed.
+     *
+     * @return the interval in milliseconds, or 0 if there is no time limit
+     */
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Gets how many changes may pile up before being flushed.
+     *
+     * @return the maximum number of pending changes
+     */
+    public int getMaxPendingMutations() {
+        return maxPendingMutations;
+    }
+
+    /**
+     * Checks if this policy writes every change as soon as it happens.
+     *
+     * @return true if nothing is ever buffered
+     */
+    public boolean isImmediate() {
+        return maxPendingMutations == 1;
+    }
+}
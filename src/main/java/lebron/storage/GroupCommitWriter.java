@@ -0,0 +1,114 @@
+package lebron.storage;
+
+/**
+ * A background writer that bundles bursts of changes into a single flush.
+ *
+ * The command handlers only tell the writer that something changed, which is cheap, and
+ * carry on. A dedicated thread then runs the flush action whenever the {@link FlushPolicy}
+ * says it's time - so a script that adds a hundred tasks in a row ends up doing one write
+ * instead of a hundred, and the GUI thread never waits on the disk.
+ */
+public class GroupCommitWriter {
+    private final Runnable flushAction;
+    private final FlushPolicy policy;
+    private final Object lock = new Object();
+    private final Thread thread;
+
+    private int pendingMutations;
+    private long oldestPendingAt;
+    private boolean isClosed;
+
+    /**
+     * Creates a writer and starts its background thread.
+     *
+     * @param flushAction what to run to push buffered changes to disk
+     * @param policy when to run it
+     */
+    public GroupCommitWriter(Runnable flushAction, FlushPolicy policy) {
+        this.flushAction = flushAction;
+        this.policy = policy;
+        this.thread = new Thread(this::runLoop, "lebron-storage-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Lets the writer know that one more change is waiting to be flushed.
+     *
+     * Changes that arrive after the writer has been closed are flushed straight away.
+     */
+    public void mutationRecorded() {
+        synchronized (lock) {
+            if (!isClosed) {
+                if (pendingMutations == 0) {
+                    oldestPendingAt = System.currentTimeMillis();
+                }
+                pendingMutations++;
+                lock.notifyAll();
+                return;
+            }
+        }
+        flushAction.run();
+    }
+
+    /**
+     * Stops the background thread and flushes whatever is still waiting.
+     *
+     * Once this returns, every change recorded before the call has been handed to the
+     * flush action, so it's safe to exit the program.
+     */
+    public void close() {
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            lock.notifyAll();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAction.run();
+    }
+
+    private void runLoop() {
+        while (true) {
+            synchronized (lock) {
+                try {
+                    while (!isClosed && !isFlushDue()) {
+                        lock.wait(millisUntilDue());
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (isClosed) {
+                    return;
+                }
+                pendingMutations = 0;
+            }
+            flushAction.run();
+        }
+    }
+
+    private boolean isFlushDue() {
+        if (pendingMutations == 0) {
+            return false;
+        }
+        if (pendingMutations >= policy.getMaxPendingMutations()) {
+            return true;
+        }
+        return policy.getIntervalMillis() > 0
+                && System.currentTimeMillis() - oldestPendingAt >= policy.getIntervalMillis();
+    }
+
+    private long millisUntilDue() {
+        if (pendingMutations == 0 || policy.getIntervalMillis() == 0) {
+            return 0;
+        }
+        long remaining = policy.getIntervalMillis() - (System.currentTimeMillis() - oldestPendingAt);
+        return Math.max(1, remaining);
+    }
+}
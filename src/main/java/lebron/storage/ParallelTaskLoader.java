@@ -0,0 +1,249 @@
+package lebron.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import lebron.task.Task;
+
+/**
+ * Loads really big task files using every core you've got.
+ *
+ * The file is memory-mapped and cut into chunks that always end on a line break, so no
+ * task is ever split in half. The chunks are parsed in parallel on a fork-join pool and
+ * the results are stitched back together in their original order.
+ *
+ * Binary (version 2) files are already split into independent blocks, so there each
+ * block simply becomes its own chunk. In a compressed file, each chunk inflates its own
+ * block.
+ */
+public class ParallelTaskLoader {
+    private static final int DEFAULT_MIN_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_BYTES = Integer.MAX_VALUE - 1024;
+
+    private final ForkJoinPool pool;
+    private final int minChunkBytes;
+    private final AtomicInteger deletedRecords = new AtomicInteger();
+
+    /**
+     * Creates a loader that runs on the common fork-join pool.
+     */
+    public ParallelTaskLoader() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * Creates a loader with its own pool and chunk size.
+     *
+     * @param pool where the chunks get parsed
+     * @param minChunkBytes the smallest chunk worth handing to its own worker
+     */
+    public ParallelTaskLoader(ForkJoinPool pool, int minChunkBytes) {
+        this.pool = pool;
+        this.minChunkBytes = Math.max(1, minChunkBytes);
+    }
+
+    /**
+     * Loads every task in the file, in the order they appear.
+     *
+     * Lines that can't be parsed are skipped, just like the regular loader does.
+     *
+     * @param path the task file to load
+     * @return the parsed tasks, in file order
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public List<Task> load(Path path) throws IOException {
+        deletedRecords.set(0);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int flags = binaryFlags(channel);
+            if (flags >= 0) {
+                List<long[]> blocks = findBlocks(channel, (flags & BinaryTaskFormat.FLAG_COMPRESSED) != 0);
+                return pool.invoke(new ChunkTask(chunk -> parseBlock(channel, blocks.get(chunk)), 0, blocks.size()));
+            }
+
+            long[] boundaries = findChunkBoundaries(channel);
+            return pool.invoke(new ChunkTask(
+                    chunk -> parseChunk(channel, boundaries[chunk], boundaries[chunk + 1]), 0, boundaries.length - 1));
+        }
+    }
+
+    /**
+     * Tells you how many deleted records the last binary load skipped over.
+     *
+     * @return the number of deleted records seen by the most recent {@link #load}
+     */
+    public int getDeletedRecords() {
+        return deletedRecords.get();
+    }
+
+    /**
+     * Reads the header flags of a binary file.
+     *
+     * @return the flags, or -1 if this is a text file
+     */
+    private static int binaryFlags(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryTaskFormat.HEADER_BYTES);
+        int length = channel.read(header, 0);
+        return BinaryTaskFormat.hasHeader(header.array(), length) ? BinaryTaskFormat.flagsOf(header.array()) : -1;
+    }
+
+    /**
+     * Walks the block headers of a binary file without reading the records themselves.
+     *
+     * @return one entry per complete block: payload start offset, stored payload length,
+     *         record count and (for compressed blocks) the inflated length, or -1
+     */
+    private static List<long[]> findBlocks(FileChannel channel, boolean isCompressed) throws IOException {
+        List<long[]> blocks = new ArrayList<>();
+        long size = channel.size();
+        long position = BinaryTaskFormat.HEADER_BYTES;
+        ByteBuffer header = ByteBuffer.allocate(20);
+        while (position < size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            try {
+                long recordCount = BinaryTaskFormat.readVarLong(header);
+                long payloadLength = BinaryTaskFormat.readVarLong(header);
+                long rawLength = isCompressed ? BinaryTaskFormat.readVarLong(header) : -1;
+                long payloadStart = position + header.position();
+                if (payloadStart + payloadLength > size) {
+                    break;
+                }
+                blocks.add(new long[] {payloadStart, payloadLength, recordCount, rawLength});
+                position = payloadStart + payloadLength;
+            } catch (RuntimeException e) {
+                break;
+            }
+        }
+        return blocks;
+    }
+
+    private List<Task> parseBlock(FileChannel channel, long[] block) {
+        List<Task> tasks = new ArrayList<>();
+        try {
+            ByteBuffer payload = channel.map(FileChannel.MapMode.READ_ONLY, block[0], block[1]);
+            if (block[3] >= 0) {
+                payload = BinaryTaskFormat.inflate(payload, (int) block[3]);
+            }
+            deletedRecords.addAndGet(BinaryTaskFormat.decodeBlock(payload, (int) block[2], tasks));
+        } catch (IOException e) {
+            System.err.println("Error loading tasks from file: " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Picks where each chunk starts, nudging every cut forward to just after a line break.
+     *
+     * @return chunk start offsets, followed by the file size as the final end offset
+     */
+    private long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkCount = Math.max(1, Math.min(pool.getParallelism() * 4L, size / minChunkBytes));
+        chunkCount = Math.max(chunkCount, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        for (long i = 1; i < chunkCount; i++) {
+            long cut = nextLineStart(channel, size * i / chunkCount);
+            if (cut > boundaries.get(boundaries.size() - 1) && cut < size) {
+                boundaries.add(cut);
+            }
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long offset = position;
+        while (true) {
+            window.clear();
+            int read = channel.read(window, offset);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    private static List<Task> parseChunk(FileChannel channel, long start, long end) {
+        List<Task> tasks = new ArrayList<>();
+        if (end <= start) {
+            return tasks;
+        }
+
+        try {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            CharBuffer chars = StandardCharsets.UTF_8.decode(bytes);
+            int lineStart = 0;
+            for (int i = 0; i <= chars.length(); i++) {
+                if (i == chars.length() || chars.charAt(i) == '\n') {
+                    int lineEnd = (i > lineStart && chars.charAt(i - 1) == '\r') ? i - 1 : i;
+                    if (lineEnd > lineStart) {
+                        Task task = TaskLineDecoder.decode(chars, lineStart, lineEnd);
+                        if (task != null) {
+                            tasks.add(task);
+                        }
+                    }
+                    lineStart = i + 1;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading tasks from file: " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Parses a run of chunks, splitting it in half until each worker has a single chunk.
+     */
+    private static class ChunkTask extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntFunction<List<Task>> parser;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ChunkTask(IntFunction<List<Task>> parser, int fromChunk, int toChunk) {
+            this.parser = parser;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (toChunk <= fromChunk) {
+                return new ArrayList<>();
+            }
+            if (toChunk - fromChunk == 1) {
+                return parser.apply(fromChunk);
+            }
+
+            int middle = (fromChunk + toChunk) >>> 1;
+            ChunkTask left = new ChunkTask(parser, fromChunk, middle);
+            ChunkTask right = new ChunkTask(parser, middle, toChunk);
+            left.fork();
+            List<Task> rightTasks = right.compute();
+            List<Task> tasks = left.join();
+            tasks.addAll(rightTasks);
+            return tasks;
+        }
+    }
+}
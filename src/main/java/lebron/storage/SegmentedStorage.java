@@ -0,0 +1,334 @@
+package lebron.storage;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import lebron.data.TaskList;
+import lebron.task.*;
+
+/**
+ * Keeps your tasks in a folder of small segment files instead of one big file.
+ *
+ * Tasks are grouped by type, and deadlines and events are further grouped by the month
+ * they happen in (e.g. {@code deadline-2024-12.txt}). A small {@code manifest.txt} lists
+ * every segment. When a task changes, only the segment holding it is rewritten, and on
+ * startup the segments are read in parallel - so both saving and loading scale with the
+ * tasks you're actually touching rather than your whole history.
+ *
+ * Each line in a segment is the task id followed by the usual Storage format, which
+ * is how the original list order is put back together when segments are merged.
+ *
+ * Rewritten segments and the manifest go to a temporary file first and are then moved
+ * into place, so a crash halfway through a write never loses a whole segment.
+ */
+public class SegmentedStorage implements TaskStore {
+    private static final String MANIFEST_NAME = "manifest.txt";
+    private static final String SEGMENT_SUFFIX = ".txt";
+    private static final String SEPARATOR = " | ";
+
+    private final Path directory;
+    private final Map<String, Map<Integer, Task>> segments;
+    private boolean isLoaded;
+
+    /**
+     * Creates a segmented store that lives in the given folder.
+     *
+     * @param directoryPath the folder that holds the manifest and segment files
+     */
+    public SegmentedStorage(String directoryPath) {
+        this.directory = Paths.get(directoryPath);
+        this.segments = new TreeMap<>();
+    }
+
+    /**
+     * Loads every segment listed in the manifest and merges them back into list order.
+     *
+     * Segments are independent files, so they're read in parallel. A missing or broken
+     * segment only loses the tasks inside it.
+     *
+     * @return all your saved tasks, in list order
+     */
+    @Override
+    public synchronized List<Task> load() {
+        segments.clear();
+        List<String> names = getSegmentNames();
+
+        Map<String, Map<Integer, Task>> loaded = names.parallelStream()
+                .collect(Collectors.toConcurrentMap(name -> name, this::loadSegment));
+        segments.putAll(loaded);
+        isLoaded = true;
+
+        return segments.values().stream()
+                .flatMap(segment -> segment.values().stream())
+                .sorted(Comparator.comparingInt(Task::getId))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Lists the segments recorded in the manifest.
+     *
+     * @return the segment names (empty if nothing has been saved yet)
+     */
+    public List<String> getSegmentNames() {
+        Path manifest = directory.resolve(MANIFEST_NAME);
+        if (!Files.exists(manifest)) {
+            return new ArrayList<>();
+        }
+
+        try {
+            return Files.readAllLines(manifest).stream()
+                    .map(String::trim)
+                    .filter(name -> !name.isEmpty())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            System.err.println("Error reading segment manifest: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Reads the tasks of a single segment, so callers can open just the segments they need.
+     *
+     * @param name the segment name from the manifest
+     * @return the tasks in that segment, keyed and ordered by id
+     */
+    public Map<Integer, Task> loadSegment(String name) {
+        Map<Integer, Task> tasks = new TreeMap<>();
+        Path segmentFile = directory.resolve(name + SEGMENT_SUFFIX);
+        if (!Files.exists(segmentFile)) {
+            return tasks;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(segmentFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Task task = parseSegmentLine(line);
+                if (task != null) {
+                    tasks.put(task.getId(), task);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading segment " + name + ": " + e.getMessage());
+        }
+        return tasks;
+    }
+
+    /**
+     * Regroups and rewrites every segment from scratch.
+     *
+     * Tasks that don't have an id yet are given one after the highest existing id,
+     * so their place in the list survives the round trip through the segments.
+     *
+     * @param tasks the complete list of tasks to save
+     */
+    @Override
+    public synchronized void save(List<Task> tasks) {
+        List<String> oldNames = getSegmentNames();
+        segments.clear();
+        int nextId = tasks.stream().filter(task -> task != null).mapToInt(Task::getId).max().orElse(0) + 1;
+        for (Task task : tasks) {
+            if (task == null) {
+                continue;
+            }
+            if (task.getId() <= 0) {
+                task.setId(nextId++);
+            }
+            segments.computeIfAbsent(segmentOf(task), name -> new TreeMap<>()).put(task.getId(), task);
+        }
+        isLoaded = true;
+
+        for (String name : segments.keySet()) {
+            writeSegment(name);
+        }
+        for (String name : oldNames) {
+            if (!segments.containsKey(name)) {
+                deleteSegmentFile(name);
+            }
+        }
+        writeManifest();
+    }
+
+    /**
+     * Every change was already written to its segment when it was recorded, so this
+     * only tells the list that its changes are saved.
+     *
+     * @param tasks the task list whose changes should be saved
+     */
+    @Override
+    public void saveChanges(TaskList tasks) {
+        tasks.clearChanges();
+    }
+
+    /**
+     * Appends a new task to the end of its segment.
+     *
+     * @param task the task that was just added (it must already have its id)
+     */
+    @Override
+    public synchronized void recordAdded(Task task) {
+        ensureLoaded();
+        String name = segmentOf(task);
+        boolean isNewSegment = !segments.containsKey(name);
+        segments.computeIfAbsent(name, key -> new TreeMap<>()).put(task.getId(), task);
+
+        try {
+            Files.createDirectories(directory);
+            try (PrintWriter writer = new PrintWriter(new FileWriter(
+                    directory.resolve(name + SEGMENT_SUFFIX).toFile(), true))) {
+                writer.println(formatSegmentLine(task));
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving task to segment " + name + ": " + e.getMessage());
+        }
+
+        if (isNewSegment) {
+            writeManifest();
+        }
+    }
+
+    /**
+     * Rewrites only the segment holding the task that was marked or unmarked.
+     *
+     * @param task the task whose done status just changed
+     */
+    @Override
+    public synchronized void recordMarked(Task task) {
+        ensureLoaded();
+        String name = segmentOf(task);
+        if (segments.containsKey(name)) {
+            writeSegment(name);
+        }
+    }
+
+    /**
+     * Rewrites only the segment the deleted task used to live in.
+     *
+     * Segments that end up empty are removed along with their manifest entry.
+     *
+     * @param task the task that was just removed
+     */
+    @Override
+    public synchronized void recordDeleted(Task task) {
+        ensureLoaded();
+        String name = segmentOf(task);
+        Map<Integer, Task> segment = segments.get(name);
+        if (segment == null || segment.remove(task.getId()) == null) {
+            return;
+        }
+
+        if (segment.isEmpty()) {
+            segments.remove(name);
+            deleteSegmentFile(name);
+            writeManifest();
+        } else {
+            writeSegment(name);
+        }
+    }
+
+    /**
+     * Works out which segment a task belongs in.
+     *
+     * @param task the task to place
+     * @return the segment name, such as "todo" or "event-2024-12"
+     */
+    static String segmentOf(Task task) {
+        if (task instanceof Deadline) {
+            return "deadline-" + monthOf(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            return "event-" + monthOf(((Event) task).getFrom());
+        }
+        return "todo";
+    }
+
+    private static String monthOf(LocalDateTime dateTime) {
+        return String.format("%04d-%02d", dateTime.getYear(), dateTime.getMonthValue());
+    }
+
+    /**
+     * Reads the segments already on disk before the first change, so a change made
+     * without calling {@link #load()} first doesn't write a manifest or segment that
+     * leaves out what was there.
+     */
+    private void ensureLoaded() {
+        if (!isLoaded) {
+            load();
+        }
+    }
+
+    private void writeSegment(String name) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : segments.get(name).values()) {
+            lines.add(formatSegmentLine(task));
+        }
+        try {
+            writeFile(name + SEGMENT_SUFFIX, lines);
+        } catch (IOException e) {
+            System.err.println("Error saving segment " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void writeManifest() {
+        try {
+            writeFile(MANIFEST_NAME, new ArrayList<>(segments.keySet()));
+        } catch (IOException e) {
+            System.err.println("Error saving segment manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a file in the folder through a temporary file, so it is either the old
+     * version or the new one, never half of each.
+     */
+    private void writeFile(String fileName, List<String> lines) throws IOException {
+        Files.createDirectories(directory);
+        Path path = directory.resolve(fileName);
+        Path tempPath = directory.resolve(fileName + ".tmp");
+        Files.write(tempPath, lines);
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void deleteSegmentFile(String name) {
+        try {
+            Files.deleteIfExists(directory.resolve(name + SEGMENT_SUFFIX));
+        } catch (IOException e) {
+            System.err.println("Error removing segment " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static String formatSegmentLine(Task task) {
+        return task.getId() + SEPARATOR + Storage.formatTaskForFile(task);
+    }
+
+    private static Task parseSegmentLine(String line) {
+        String[] parts = line.split(" \\| ", 2);
+        if (parts.length < 2) {
+            return null;
+        }
+
+        try {
+            int id = Integer.parseInt(parts[0]);
+            Task task = Storage.parseTaskFromFile(parts[1]);
+            if (task != null) {
+                task.setId(id);
+            }
+            return task;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing task from segment: " + line);
+            return null;
+        }
+    }
+}
@@ -1,12 +1,29 @@
 package lebron.storage;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.format.DateTimeFormatter;
+import lebron.data.TaskList;
 import lebron.task.*;
 
 /**
@@ -15,17 +32,100 @@ import lebron.task.*;
  * It knows how to save your tasks to a file and load them back up when you restart
  * the chatbot. It handles all the messy details of file I/O and data formatting
  * so you don't have to worry about losing your precious task list.
+ * 
+ * Day-to-day changes don't rewrite the whole file - they are appended to a small
+ * {@link TaskJournal} next to it, and folded back into the main file the next time
+ * your tasks are loaded. With a {@link FlushPolicy} other than immediate, journal records
+ * are buffered and written out in batches by a background {@link GroupCommitWriter}.
+ * 
+ * When you're done, {@link #saveChanges(TaskList)} writes only the tasks that changed
+ * straight into the main file - marking a task flips one byte in place - so the journal
+ * can be thrown away without rewriting everything.
+ * 
+ * In compressed mode every block of the file is deflated on its own, which makes the file
+ * much smaller and is still loaded block by block. The catch is that nothing can be
+ * changed in place any more, so every save rewrites the file.
  */
-public class Storage {
+public class Storage implements TaskStore {
+    private static final long PARALLEL_LOAD_THRESHOLD_BYTES = 4L << 20;
+
     private final String filePath;
+    private final TaskJournal journal;
+    private final GroupCommitWriter writer;
+    private final boolean isCompressed;
+    private Map<Integer, BinaryTaskFormat.RecordLocation> recordIndex;
+    private long indexedEnd;
+    private int liveRecords;
+    private int deletedRecords;
+    private int highestStoredId;
+    private volatile BasicFileAttributes knownFileState;
 
     /**
      * Creates a new Storage handler for the specified file.
      * 
+     * Every change is written to the journal straight away.
+     * 
      * @param filePath where to save and load your tasks from
      */
     public Storage(String filePath) {
+        this(filePath, FlushPolicy.immediate());
+    }
+
+    /**
+     * Creates a new Storage handler that writes changes according to a flush policy.
+     * 
+     * @param filePath where to save and load your tasks from
+     * @param policy how eagerly changes are written to disk
+     */
+    public Storage(String filePath, FlushPolicy policy) {
+        this(filePath, policy, false);
+    }
+
+    /**
+     * Creates a new Storage handler that can write a compressed data file.
+     * 
+     * Files are read the same way whether or not they are compressed; this only decides
+     * how the file is written the next time it is saved.
+     * 
+     * @param filePath where to save and load your tasks from
+     * @param policy how eagerly changes are written to disk
+     * @param isCompressed true to deflate each block of the data file
+     */
+    public Storage(String filePath, FlushPolicy policy, boolean isCompressed) {
         this.filePath = filePath;
+        this.journal = new TaskJournal(filePath + ".journal");
+        this.writer = policy.isImmediate() ? null : new GroupCommitWriter(() -> journal.flush(false), policy);
+        this.isCompressed = isCompressed;
+    }
+
+    /**
+     * Opens the right kind of store for the given path.
+     * 
+     * If the path is an existing folder, your tasks are kept in segment files inside it
+     * (see {@link SegmentedStorage}). Otherwise they go into a single file at that path.
+     * 
+     * @param path the data file, or a folder holding a segmented store
+     * @return a store that reads and writes tasks at that path
+     */
+    public static TaskStore open(String path) {
+        return open(path, FlushPolicy.immediate());
+    }
+
+    /**
+     * Opens the right kind of store for the given path, batching writes where it can.
+     * 
+     * The flush policy applies to the single-file store; segment files are always
+     * written straight away.
+     * 
+     * @param path the data file, or a folder holding a segmented store
+     * @param policy how eagerly changes are written to disk
+     * @return a store that reads and writes tasks at that path
+     */
+    public static TaskStore open(String path, FlushPolicy policy) {
+        if (Files.isDirectory(Paths.get(path))) {
+            return new SegmentedStorage(path);
+        }
+        return new Storage(path, policy);
     }
 
     /**
@@ -35,30 +135,133 @@ public class Storage {
      * we'll just return an empty list and you can start fresh. If there are any hiccups
      * reading the file, we'll do our best to recover and skip the problematic lines.
      * 
+     * The file is normally in the compact {@link BinaryTaskFormat}. Files from older
+     * versions of Lebron (the pipe-separated text format) are still understood, and are
+     * quietly rewritten in the binary format the first time they are loaded.
+     * 
+     * Big files (a few megabytes and up) are handed to the {@link ParallelTaskLoader}
+     * so they load on all cores.
+     * 
+     * Any changes waiting in the journal are replayed on top of the file and then
+     * written back as a fresh snapshot, so the journal starts empty every session.
+     * The same happens when most of the records in the file belong to deleted tasks.
+     * 
      * @return a list of all your saved tasks
      */
+    @Override
     public List<Task> load() {
+        journal.flush(false);
+        Path path = Paths.get(filePath);
+        boolean isLegacyFile = Files.exists(path) && !isBinaryFile(path);
+        List<Task> tasks = loadSnapshot();
+        if (journal.hasRecords()) {
+            tasks = journal.replay(tasks);
+            save(tasks);
+        } else if (isLegacyFile || deletedRecords > liveRecords) {
+            save(tasks);
+        }
+        for (Task task : tasks) {
+            task.markClean();
+        }
+        highestStoredId = highestIdOf(tasks);
+        rememberFileState();
+        return tasks;
+    }
+
+    /**
+     * Streams your saved tasks straight from the file, without building the whole list.
+     * 
+     * Only one block of the file (or one line of an old text file) is decoded at a time,
+     * so this works in bounded memory even for huge or archived task files. Changes that
+     * are still in the journal are applied on the fly. Unlike {@link #load()}, nothing is
+     * ever written back to disk.
+     * 
+     * The stream keeps the file open until it is closed, so use it in a
+     * try-with-resources block.
+     * 
+     * @return the saved tasks, in list order
+     */
+    @Override
+    public Stream<Task> stream() {
+        journal.flush(false);
+        TaskCursor cursor = new TaskCursor(Paths.get(filePath));
+        Iterator<Task> tasks = journal.replay(cursor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(tasks,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(cursor::close);
+    }
+
+    private List<Task> loadSnapshot() {
         List<Task> tasks = new ArrayList<>();
+        Path path = Paths.get(filePath);
+        recordIndex = null;
+        deletedRecords = 0;
         try {
-            if (!Files.exists(Paths.get(filePath))) {
+            if (!Files.exists(path)) {
                 return tasks;
             }
 
-            try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    Task task = parseTaskFromFile(line);
-                    if (task != null) {
-                        tasks.add(task);
+            if (Files.size(path) >= PARALLEL_LOAD_THRESHOLD_BYTES) {
+                ParallelTaskLoader loader = new ParallelTaskLoader();
+                tasks = loader.load(path);
+                deletedRecords = loader.getDeletedRecords();
+            } else if (isBinaryFile(path)) {
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+                    deletedRecords = BinaryTaskFormat.read(in, tasks);
+                }
+            } else {
+                try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        Task task = parseTaskFromFile(line);
+                        if (task != null) {
+                            tasks.add(task);
+                        }
                     }
                 }
             }
+
+            if (!isBinaryFile(path)) {
+                assignIdsInOrder(tasks);
+            }
         } catch (IOException e) {
             System.err.println("Error loading tasks from file: " + e.getMessage());
         }
+        liveRecords = tasks.size();
         return tasks;
     }
 
+    private static boolean isBinaryFile(Path path) {
+        return binaryFlags(path) >= 0;
+    }
+
+    /**
+     * Reads the header flags of a binary file.
+     *
+     * @return the flags, or -1 if the file isn't a binary task file
+     */
+    private static int binaryFlags(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] header = new byte[BinaryTaskFormat.HEADER_BYTES];
+            if (BinaryTaskFormat.hasHeader(header, in.readNBytes(header, 0, header.length))) {
+                return BinaryTaskFormat.flagsOf(header);
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Gives tasks from an old text file the ids that match their position in it
+     * (starting from 1), which is how the journal refers to them until the file is
+     * migrated. Binary files keep the ids they were saved with.
+     */
+    private static void assignIdsInOrder(List<Task> tasks) {
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).setId(i + 1);
+        }
+    }
+
     /**
      * Saves all your tasks to the file for safekeeping.
      * 
@@ -66,15 +269,37 @@ public class Storage {
      * automatically creates any needed directories and handles the file formatting.
      * If something goes wrong, it'll let you know but won't crash the program.
      * 
+     * The tasks are written to a temporary file first and then moved into place, so a
+     * crash halfway through a save never leaves you with half a task list. Writing a full
+     * snapshot also clears the journal, since everything in it is now part of the file.
+     * 
      * @param tasks the complete list of tasks to save
      */
+    @Override
     public void save(List<Task> tasks) {
+        Path path = Paths.get(filePath);
+        Path tempPath = Paths.get(filePath + ".tmp");
+        assignMissingIds(tasks);
         try {
-            Files.createDirectories(Paths.get(filePath).getParent());
-            
-            try (PrintWriter writer = new PrintWriter(new FileWriter(filePath))) {
-                for (Task task : tasks) {
-                    writer.println(formatTaskForFile(task));
+            Files.createDirectories(path.getParent());
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                BinaryTaskFormat.write(tasks, out, isCompressed);
+            }
+            try {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            journal.clear();
+            recordIndex = null;
+            liveRecords = tasks.size();
+            deletedRecords = 0;
+            highestStoredId = highestIdOf(tasks);
+            rememberFileState();
+            for (Task task : tasks) {
+                if (task != null) {
+                    task.markClean();
                 }
             }
         } catch (IOException e) {
@@ -82,6 +307,307 @@ public class Storage {
         }
     }
 
+    /**
+     * Saves just the tasks that changed since the last save, right into the main file.
+     * 
+     * Every record has a fixed place in the file, found through an offset index that is
+     * built the first time this is called and kept up to date afterwards. Marking or
+     * unmarking a task overwrites its tag byte, and deleting one sets the "deleted" bit in
+     * that same byte. New tasks are appended as a small block at the end of the file.
+     * 
+     * Anything that can't be done in place - a task whose description changed, a missing,
+     * old-format or compressed file, or a file that is mostly deleted records by now -
+     * falls back to a full {@link #save(List)}. Once the changes are safely on disk the journal is
+     * cleared, since the file already has everything in it.
+     * 
+     * @param tasks the task list whose changes should be saved
+     */
+    @Override
+    public void saveChanges(TaskList tasks) {
+        List<Task> changedTasks = tasks.getChangedTasks();
+        List<Task> deletedTasks = tasks.getDeletedTasks();
+        if (changedTasks.isEmpty() && deletedTasks.isEmpty()) {
+            return;
+        }
+
+        Path path = Paths.get(filePath);
+        boolean isSaved = false;
+        if (!isCompressed && Files.exists(path) && binaryFlags(path) == 0
+                && deletedRecords + deletedTasks.size() <= liveRecords) {
+            try {
+                isSaved = writeChangesInPlace(path, changedTasks, deletedTasks);
+            } catch (IOException e) {
+                System.err.println("Error saving task changes to file: " + e.getMessage());
+                recordIndex = null;
+            }
+        }
+
+        if (isSaved) {
+            journal.clear();
+            rememberFileState();
+        } else {
+            save(tasks.getAllTasks());
+        }
+        tasks.clearChanges();
+    }
+
+    /**
+     * Applies the changes to the file through the offset index.
+     *
+     * @return false (before touching the file) if the changes can't be written in place
+     */
+    private boolean writeChangesInPlace(Path path, List<Task> changedTasks, List<Task> deletedTasks)
+            throws IOException {
+        if (isChangedOnDisk()) {
+            // Someone else rewrote the file, so our offsets could point anywhere
+            recordIndex = null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (recordIndex == null) {
+                recordIndex = new HashMap<>();
+                indexedEnd = BinaryTaskFormat.indexRecords(channel, recordIndex);
+            }
+            if (indexedEnd != channel.size() || !canUpdateInPlace(channel, changedTasks)) {
+                return false;
+            }
+
+            List<Task> newTasks = new ArrayList<>();
+            for (Task task : changedTasks) {
+                BinaryTaskFormat.RecordLocation location = recordIndex.get(task.getId());
+                int tag = BinaryTaskFormat.tagOf(task);
+                if (location == null) {
+                    newTasks.add(task);
+                } else if (location.tag != tag) {
+                    writeTag(channel, location.offset, tag);
+                    recordIndex.put(task.getId(),
+                            new BinaryTaskFormat.RecordLocation(location.offset, tag, location.length));
+                }
+            }
+            for (Task task : deletedTasks) {
+                BinaryTaskFormat.RecordLocation location = recordIndex.remove(task.getId());
+                if (location != null) {
+                    writeTag(channel, location.offset, location.tag | BinaryTaskFormat.DELETED_BIT);
+                    deletedRecords++;
+                    liveRecords--;
+                }
+            }
+            if (!newTasks.isEmpty()) {
+                appendBlock(channel, newTasks);
+            }
+            channel.force(false);
+            return true;
+        }
+    }
+
+    /**
+     * Gets the data file this storage reads and writes.
+     */
+    Path getPath() {
+        return Paths.get(filePath);
+    }
+
+    /**
+     * Notes what the data file looks like right after we read or wrote it, so changes
+     * made by anyone else can be told apart from our own.
+     */
+    void rememberFileState() {
+        knownFileState = readFileState();
+    }
+
+    /**
+     * Checks if the data file was changed by someone else since we last read or wrote it.
+     *
+     * @return true if the file's size, modification time or identity no longer match
+     */
+    boolean isChangedOnDisk() {
+        BasicFileAttributes current = readFileState();
+        if (current == null || knownFileState == null) {
+            return current != knownFileState;
+        }
+        return current.size() != knownFileState.size()
+                || !current.lastModifiedTime().equals(knownFileState.lastModifiedTime())
+                || !Objects.equals(current.fileKey(), knownFileState.fileKey());
+    }
+
+    /**
+     * Takes the data file as it is now as our own, after someone else changed it and
+     * those changes were merged into the task list.
+     *
+     * @param liveRecords how many tasks the file holds now
+     * @param highestId the highest task id in the file now
+     */
+    void acceptExternalChanges(int liveRecords, int highestId) {
+        recordIndex = null;
+        this.liveRecords = liveRecords;
+        deletedRecords = 0;
+        highestStoredId = Math.max(highestStoredId, highestId);
+        rememberFileState();
+    }
+
+    /**
+     * Gets the highest task id the data file held when we last read or wrote it. Ids are
+     * handed out in increasing order, so a task with a higher id was added since then.
+     *
+     * @return the highest stored id, or 0 if nothing has been stored yet
+     */
+    int getHighestStoredId() {
+        return highestStoredId;
+    }
+
+    /**
+     * Gets the ids of the tasks whose deletion is in the journal but not yet in the data file.
+     *
+     * @return the ids of the deleted tasks
+     */
+    Set<Integer> getPendingDeletes() {
+        return journal.getDeletedIds();
+    }
+
+    private static int highestIdOf(List<Task> tasks) {
+        int highestId = 0;
+        for (Task task : tasks) {
+            if (task != null) {
+                highestId = Math.max(highestId, task.getId());
+            }
+        }
+        return highestId;
+    }
+
+    private BasicFileAttributes readFileState() {
+        try {
+            return Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks that every changed task is either new or differs from its stored record
+     * only in its done flag, by comparing everything after the tag byte with the bytes
+     * in the file.
+     */
+    private boolean canUpdateInPlace(FileChannel channel, List<Task> changedTasks) throws IOException {
+        for (Task task : changedTasks) {
+            BinaryTaskFormat.RecordLocation location = recordIndex.get(task.getId());
+            if (location == null) {
+                continue;
+            }
+            byte[] record = BinaryTaskFormat.encodeRecord(task);
+            if (record.length != location.length) {
+                return false;
+            }
+            ByteBuffer stored = ByteBuffer.allocate(record.length - 1);
+            while (stored.hasRemaining()) {
+                if (channel.read(stored, location.offset + 1 + stored.position()) < 0) {
+                    return false;
+                }
+            }
+            if (!Arrays.equals(record, 1, record.length, stored.array(), 0, stored.capacity())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeTag(FileChannel channel, long offset, int tag) throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[] {(byte) tag}), offset);
+    }
+
+    private void appendBlock(FileChannel channel, List<Task> newTasks) throws IOException {
+        long[] recordOffsets = new long[newTasks.size()];
+        ByteBuffer block = ByteBuffer.wrap(BinaryTaskFormat.encodeBlock(newTasks, recordOffsets));
+        long blockStart = indexedEnd;
+        while (block.hasRemaining()) {
+            indexedEnd += channel.write(block, indexedEnd);
+        }
+        for (int i = 0; i < newTasks.size(); i++) {
+            Task task = newTasks.get(i);
+            highestStoredId = Math.max(highestStoredId, task.getId());
+            long recordEnd = (i + 1 < newTasks.size()) ? recordOffsets[i + 1] : block.capacity();
+            recordIndex.put(task.getId(), new BinaryTaskFormat.RecordLocation(blockStart + recordOffsets[i],
+                    BinaryTaskFormat.tagOf(task), (int) (recordEnd - recordOffsets[i])));
+        }
+        liveRecords += newTasks.size();
+    }
+
+    /**
+     * Gives tasks that were never added through a TaskList an id after the highest
+     * existing one, so every record in the file can be referred to by id.
+     */
+    private static void assignMissingIds(List<Task> tasks) {
+        int nextId = 1;
+        for (Task task : tasks) {
+            if (task != null) {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+        }
+        for (Task task : tasks) {
+            if (task != null && task.getId() <= 0) {
+                task.setId(nextId++);
+            }
+        }
+    }
+
+    /**
+     * Remembers that a task was added, without rewriting the whole file.
+     * 
+     * @param task the task that was just added (it must already have its id)
+     */
+    @Override
+    public void recordAdded(Task task) {
+        journal.appendAdd(task);
+        afterRecord();
+    }
+
+    /**
+     * Remembers that a task was marked or unmarked, without rewriting the whole file.
+     * 
+     * @param task the task whose done status just changed
+     */
+    @Override
+    public void recordMarked(Task task) {
+        journal.appendMark(task);
+        afterRecord();
+    }
+
+    /**
+     * Remembers that a task was deleted, without rewriting the whole file.
+     * 
+     * @param task the task that was just removed
+     */
+    @Override
+    public void recordDeleted(Task task) {
+        journal.appendDelete(task);
+        afterRecord();
+    }
+
+    /**
+     * Writes any journal records that are still waiting in memory.
+     */
+    @Override
+    public void flush() {
+        journal.flush(false);
+    }
+
+    /**
+     * Stops the background writer (if any) and makes sure every change is safely on disk.
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.close();
+        }
+        journal.flush(true);
+    }
+
+    private void afterRecord() {
+        if (writer == null) {
+            journal.flush(false);
+        } else {
+            writer.mutationRecorded();
+        }
+    }
+
     /**
      * Formats a task for storage in the file.
      * 
@@ -91,7 +617,7 @@ public class Storage {
      * @param task the task to format
      * @return a formatted string ready for file storage
      */
-    private String formatTaskForFile(Task task) {
+    static String formatTaskForFile(Task task) {
         String doneStatus = task.isDone() ? "1" : "0";
         DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
         
@@ -113,52 +639,13 @@ public class Storage {
      * 
      * Expects a pipe-separated format with task type, completion status,
      * description, and any time information. Handles parsing errors gracefully
-     * by returning null for malformed lines.
+     * by returning null for malformed lines. The actual scanning is done by
+     * {@link TaskLineDecoder}, which avoids regex splitting and date parsing overhead.
      * 
      * @param line the line from the file to parse
      * @return the parsed Task object, or null if parsing fails
      */
-    private Task parseTaskFromFile(String line) {
-        String[] parts = line.split(" \\| ");
-        if (parts.length < 3) {
-            return null;
-        }
-
-        String taskType = parts[0];
-        boolean isDone = parts[1].equals("1");
-        String description = parts[2];
-
-        Task task = null;
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-        
-        try {
-            switch (taskType) {
-                case "T":
-                    task = new Todo(description);
-                    break;
-                case "D":
-                    if (parts.length >= 4) {
-                        LocalDateTime byDateTime = LocalDateTime.parse(parts[3], formatter);
-                        task = new Deadline(description, byDateTime);
-                    }
-                    break;
-                case "E":
-                    if (parts.length >= 5) {
-                        LocalDateTime fromDateTime = LocalDateTime.parse(parts[3], formatter);
-                        LocalDateTime toDateTime = LocalDateTime.parse(parts[4], formatter);
-                        task = new Event(description, fromDateTime, toDateTime);
-                    }
-                    break;
-            }
-        } catch (Exception e) {
-            System.err.println("Error parsing task from file: " + line + " - " + e.getMessage());
-            return null;
-        }
-
-        if (task != null) {
-            task.setDone(isDone);
-        }
-
-        return task;
+    static Task parseTaskFromFile(String line) {
+        return TaskLineDecoder.decode(line);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package lebron.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import lebron.task.Task;
+
+/**
+ * Walks through the tasks in a data file one at a time, without loading them all first.
+ *
+ * A binary file is read one block at a time (a few thousand tasks at most, inflated on
+ * the fly if the file is compressed), and an old text file one line at a time, so even a
+ * huge or archived file only ever has a handful of tasks in memory. That makes it a good
+ * fit for read-only jobs like listing, searching or exporting, and for building a
+ * {@code TaskList} bit by bit.
+ *
+ * Tasks come out clean (see {@link Task#isDirty()}), since they match what is on disk.
+ *
+ * A cursor holds the file open, so always close it when you're done (try-with-resources
+ * works nicely). Problems reading the file are reported and simply end the cursor early,
+ * just like {@link Storage#load()} skips what it can't read.
+ */
+public class TaskCursor implements Iterator<Task>, AutoCloseable {
+    private final InputStream in;
+    private final DataInputStream binaryData;
+    private final BufferedReader textReader;
+    private final boolean isCompressed;
+    private final List<Task> block = new ArrayList<>();
+    private int blockPosition;
+    private int nextTextId = 1;
+    private Task next;
+    private boolean isFinished;
+
+    /**
+     * Opens a cursor over the tasks stored in a file.
+     *
+     * A file that doesn't exist gives you a cursor with no tasks.
+     *
+     * @param path the data file, in either the binary or the old text format
+     */
+    public TaskCursor(Path path) {
+        InputStream stream = null;
+        DataInputStream data = null;
+        BufferedReader reader = null;
+        int flags = 0;
+        try {
+            if (Files.exists(path)) {
+                stream = new BufferedInputStream(Files.newInputStream(path));
+                stream.mark(BinaryTaskFormat.HEADER_BYTES);
+                byte[] header = new byte[BinaryTaskFormat.HEADER_BYTES];
+                boolean isBinary = BinaryTaskFormat.hasHeader(header, stream.readNBytes(header, 0, header.length));
+                stream.reset();
+                if (isBinary) {
+                    data = new DataInputStream(stream);
+                    flags = BinaryTaskFormat.readHeader(data);
+                } else {
+                    reader = new BufferedReader(new FileReader(path.toFile()));
+                    stream.close();
+                    stream = null;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error opening tasks file: " + e.getMessage());
+        }
+        this.in = stream;
+        this.binaryData = data;
+        this.textReader = reader;
+        this.isCompressed = (flags & BinaryTaskFormat.FLAG_COMPRESSED) != 0;
+        this.isFinished = (data == null && reader == null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !isFinished) {
+            next = readNext();
+            isFinished = (next == null);
+        }
+        return next != null;
+    }
+
+    @Override
+    public Task next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Task task = next;
+        next = null;
+        return task;
+    }
+
+    /**
+     * Closes the file. Calling this more than once is fine.
+     */
+    @Override
+    public void close() {
+        isFinished = true;
+        next = null;
+        try {
+            if (in != null) {
+                in.close();
+            }
+            if (textReader != null) {
+                textReader.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing tasks file: " + e.getMessage());
+        }
+    }
+
+    private Task readNext() {
+        try {
+            if (binaryData != null) {
+                while (blockPosition == block.size()) {
+                    block.clear();
+                    blockPosition = 0;
+                    if (BinaryTaskFormat.readBlock(binaryData, block, isCompressed) < 0) {
+                        return null;
+                    }
+                }
+                Task task = block.get(blockPosition++);
+                task.markClean();
+                return task;
+            }
+
+            String line;
+            while ((line = textReader.readLine()) != null) {
+                Task task = TaskLineDecoder.decode(line);
+                if (task != null) {
+                    // Same ids the text file would get from Storage.load()
+                    task.setId(nextTextId++);
+                    task.markClean();
+                    return task;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading tasks from file: " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,242 @@
+package lebron.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lebron.data.TaskList;
+import lebron.task.Task;
+
+/**
+ * Notices when the data file is changed by someone else - say, a sync tool bringing in
+ * edits from another machine - and merges just those changes into your task list.
+ *
+ * A background thread watches the file's folder with a {@link WatchService}. It only
+ * raises a flag; nothing touches the task list until {@link #applyExternalChanges(TaskList)}
+ * is called from the thread that owns the list (the chat loop calls it before every
+ * command). That way a burst of sync events costs one merge, and only when it matters.
+ *
+ * The merge streams the file and compares each record, byte for byte, with the task of the
+ * same id in memory, so only tasks that really changed are swapped in. Tasks you changed
+ * or deleted yourself and haven't saved yet are left alone, so your own change wins when
+ * it is saved.
+ *
+ * Both copies of the file hand out new ids the same way, so a task added here and a
+ * different one added elsewhere can end up with the same id. The one from the file is
+ * then given a fresh id and added as a task of its own.
+ */
+public class TaskFileWatcher implements AutoCloseable {
+    private final Storage storage;
+    private final AtomicBoolean isChangePending = new AtomicBoolean();
+    private WatchService watchService;
+    private Thread thread;
+
+    /**
+     * Creates a watcher for a storage's data file. Call {@link #start()} to begin watching.
+     *
+     * @param storage the storage whose file should be watched
+     */
+    public TaskFileWatcher(Storage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Starts watching in the background.
+     *
+     * The file's folder is created if it isn't there yet (say, on a fresh install), so the
+     * first save can be watched too. If the folder can't be watched, you just don't get
+     * live updates; nothing else breaks.
+     */
+    public void start() {
+        Path folder = storage.getPath().toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(folder);
+            watchService = FileSystems.getDefault().newWatchService();
+            folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            System.err.println("Error watching tasks file: " + e.getMessage());
+            return;
+        }
+
+        thread = new Thread(this::watch, "lebron-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        Path fileName = storage.getPath().getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        fileChanged();
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher was closed
+        }
+    }
+
+    /**
+     * Called whenever the data file is touched; remembers the change if it wasn't ours.
+     */
+    void fileChanged() {
+        if (storage.isChangedOnDisk()) {
+            isChangePending.set(true);
+        }
+    }
+
+    /**
+     * Checks if the data file has been changed by someone else and not merged yet.
+     *
+     * @return true if {@link #applyExternalChanges(TaskList)} has something to do
+     */
+    public boolean hasPendingChanges() {
+        return isChangePending.get();
+    }
+
+    /**
+     * Merges changes made to the data file by someone else into the task list.
+     *
+     * Does nothing (and doesn't read the file) unless the watcher has seen the file change.
+     * Tasks that were added to the file go at the end of the list, changed ones are
+     * replaced where they are, and removed ones are dropped. Tasks deleted here but not
+     * saved yet stay deleted.
+     *
+     * @param tasks the task list to bring up to date
+     * @return how many tasks were added, changed or removed
+     */
+    public int applyExternalChanges(TaskList tasks) {
+        if (!isChangePending.getAndSet(false) || !storage.isChangedOnDisk()) {
+            return 0;
+        }
+
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task != null) {
+                positions.put(task.getId(), i);
+            }
+        }
+
+        Set<Integer> deletedIds = storage.getPendingDeletes();
+        for (Task task : tasks.getDeletedTasks()) {
+            deletedIds.add(task.getId());
+        }
+        int highestStoredId = storage.getHighestStoredId();
+
+        // Collect the differences first and only apply them if the file held still while
+        // we read it, so a sync that is still writing never empties the list
+        BasicFileAttributes before = readFileState();
+        List<Task> addedTasks = new ArrayList<>();
+        List<Task> clashingTasks = new ArrayList<>();
+        Map<Integer, Task> changedTasks = new HashMap<>();
+        boolean[] isInFile = new boolean[tasks.size()];
+        int fileTaskCount = 0;
+        int highestFileId = 0;
+        try (TaskCursor cursor = new TaskCursor(storage.getPath())) {
+            while (cursor.hasNext()) {
+                Task fileTask = cursor.next();
+                fileTaskCount++;
+                highestFileId = Math.max(highestFileId, fileTask.getId());
+                if (deletedIds.contains(fileTask.getId())) {
+                    continue;
+                }
+                Integer position = positions.get(fileTask.getId());
+                if (position == null) {
+                    addedTasks.add(fileTask);
+                    continue;
+                }
+                Task task = tasks.get(position);
+                boolean isSame = BinaryTaskFormat.isSameRecord(task, fileTask);
+                if (task.isDirty() && task.getId() > highestStoredId && !isSame) {
+                    // Added here and elsewhere, under the same id
+                    clashingTasks.add(fileTask);
+                    continue;
+                }
+                isInFile[position] = true;
+                if (!task.isDirty() && !isSame) {
+                    changedTasks.put(position, fileTask);
+                }
+            }
+        }
+        if (!isSameFileState(before, readFileState())) {
+            isChangePending.set(true);
+            return 0;
+        }
+
+        for (Map.Entry<Integer, Task> change : changedTasks.entrySet()) {
+            tasks.replace(change.getKey(), change.getValue());
+        }
+        int removedCount = 0;
+        for (int i = isInFile.length - 1; i >= 0; i--) {
+            Task task = tasks.get(i);
+            if (!isInFile[i] && task != null && !task.isDirty()) {
+                tasks.discard(i);
+                removedCount++;
+            }
+        }
+        for (Task task : addedTasks) {
+            tasks.add(task);
+        }
+        // Only now, so the fresh ids come after every id taken in the file
+        for (Task task : clashingTasks) {
+            task.setId(0);
+            tasks.add(task);
+            storage.recordAdded(task);
+        }
+        storage.acceptExternalChanges(fileTaskCount, highestFileId);
+        return addedTasks.size() + clashingTasks.size() + changedTasks.size() + removedCount;
+    }
+
+    private BasicFileAttributes readFileState() {
+        try {
+            return Files.readAttributes(storage.getPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSameFileState(BasicFileAttributes before, BasicFileAttributes after) {
+        if (before == null || after == null) {
+            return before == after;
+        }
+        return before.size() == after.size() && before.lastModifiedTime().equals(after.lastModifiedTime());
+    }
+
+    /**
+     * Stops watching.
+     */
+    @Override
+    public void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing file watcher: " + e.getMessage());
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package lebron.storage;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import lebron.task.Task;
+
+/**
+ * An append-only log of the changes made to your task list since the last snapshot.
+ *
+ * Instead of rewriting the whole data file every time you add, mark or delete a task,
+ * Storage appends one small record here. Each record refers to the task by its stable id,
+ * so the cost of a command stays the same no matter how many tasks you have. When the
+ * tasks are loaded again, the journal is replayed on top of the snapshot.
+ *
+ * Records are collected in memory and written out together by {@link #flush(boolean)},
+ * so a burst of changes costs a single append.
+ *
+ * Records look like this:
+ * - {@code A | <id> | <task in snapshot format>} when a task is added
+ * - {@code M | <id> | <1 or 0>} when a task is marked or unmarked
+ * - {@code X | <id>} when a task is deleted
+ */
+public class TaskJournal {
+    private static final String SEPARATOR = " | ";
+
+    private final String filePath;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Creates a journal that lives in the given file.
+     *
+     * @param filePath where to append the journal records
+     */
+    public TaskJournal(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Appends a record for a newly added task.
+     *
+     * @param task the task that was added
+     */
+    public synchronized void appendAdd(Task task) {
+        append("A" + SEPARATOR + task.getId() + SEPARATOR + Storage.formatTaskForFile(task));
+    }
+
+    /**
+     * Appends a record for a task that was marked or unmarked.
+     *
+     * @param task the task whose done status changed
+     */
+    public synchronized void appendMark(Task task) {
+        append("M" + SEPARATOR + task.getId() + SEPARATOR + (task.isDone() ? "1" : "0"));
+    }
+
+    /**
+     * Appends a record for a task that was deleted.
+     *
+     * @param task the task that was removed
+     */
+    public synchronized void appendDelete(Task task) {
+        append("X" + SEPARATOR + task.getId());
+    }
+
+    /**
+     * Checks if there is anything in the journal that hasn't made it into a snapshot yet.
+     *
+     * @return true if the journal file exists and has records in it
+     */
+    public boolean hasRecords() {
+        try {
+            Path path = Paths.get(filePath);
+            return Files.exists(path) && Files.size(path) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replays every journal record on top of a snapshot.
+     *
+     * The snapshot tasks must already carry their ids. Records that refer to tasks
+     * we don't know about, or lines that can't be parsed, are skipped so that a
+     * half-written last record never stops you from loading your tasks.
+     *
+     * @param snapshot the tasks loaded from the last snapshot, in list order
+     * @return the tasks after all journal records have been applied, in list order
+     */
+    public List<Task> replay(List<Task> snapshot) {
+        if (!hasRecords()) {
+            return snapshot;
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        replay(snapshot.iterator()).forEachRemaining(tasks::add);
+        return tasks;
+    }
+
+    /**
+     * Replays every journal record on top of a snapshot that is read one task at a time.
+     *
+     * Only the journal itself is read up front (it is small); the snapshot tasks are
+     * passed through as they are asked for, with deleted ones left out and marks applied
+     * on the way. Tasks added since the snapshot come out at the end.
+     *
+     * @param snapshot the tasks of the last snapshot, in list order, already carrying their ids
+     * @return the tasks after all journal records have been applied, in list order
+     */
+    public Iterator<Task> replay(Iterator<Task> snapshot) {
+        if (!hasRecords()) {
+            return snapshot;
+        }
+
+        Changes changes = new Changes();
+        readRecords(changes);
+        return new ReplayIterator(snapshot, changes);
+    }
+
+    /**
+     * Gets the ids of the tasks the journal says were deleted since the last snapshot,
+     * including records that are still waiting in memory.
+     *
+     * @return the ids of the deleted tasks
+     */
+    public synchronized Set<Integer> getDeletedIds() {
+        Changes changes = new Changes();
+        if (hasRecords()) {
+            readRecords(changes);
+        }
+        buffer.toString().lines().forEach(line -> applyRecord(line, changes));
+        return changes.deleted;
+    }
+
+    private void readRecords(Changes changes) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                applyRecord(line, changes);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading task journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every buffered record to the journal file in one go.
+     *
+     * @param isDurable true to also wait until the operating system has the records
+     *                  safely on disk (used when the program is about to exit)
+     */
+    public synchronized void flush(boolean isDurable) {
+        Path path = Paths.get(filePath);
+        if (buffer.length() == 0 && (!isDurable || !Files.exists(path))) {
+            return;
+        }
+
+        try {
+            Path parent = path.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer.toString().getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                if (isDurable) {
+                    channel.force(true);
+                }
+            }
+            buffer.setLength(0);
+        } catch (IOException e) {
+            System.err.println("Error writing to task journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Throws away all journal records, usually because a fresh snapshot now contains them.
+     */
+    public synchronized void clear() {
+        buffer.setLength(0);
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            System.err.println("Error clearing task journal: " + e.getMessage());
+        }
+    }
+
+    private void applyRecord(String line, Changes changes) {
+        String[] parts = line.split(" \\| ", 3);
+        if (parts.length < 2) {
+            return;
+        }
+
+        try {
+            int id = Integer.parseInt(parts[1]);
+            switch (parts[0]) {
+                case "A":
+                    Task task = (parts.length == 3) ? Storage.parseTaskFromFile(parts[2]) : null;
+                    if (task != null) {
+                        task.setId(id);
+                        changes.added.put(id, task);
+                    }
+                    break;
+                case "M":
+                    if (parts.length == 3) {
+                        boolean isDone = parts[2].equals("1");
+                        Task marked = changes.added.get(id);
+                        if (marked != null) {
+                            marked.setDone(isDone);
+                        } else {
+                            changes.marks.put(id, isDone);
+                        }
+                    }
+                    break;
+                case "X":
+                    changes.added.remove(id);
+                    changes.marks.remove(id);
+                    changes.deleted.add(id);
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing journal record: " + line);
+        }
+    }
+
+    private void append(String record) {
+        buffer.append(record).append(System.lineSeparator());
+    }
+
+    /**
+     * Everything the journal says about the tasks, collected so a snapshot can be
+     * replayed one task at a time.
+     */
+    private static class Changes {
+        final Map<Integer, Task> added = new LinkedHashMap<>();
+        final Map<Integer, Boolean> marks = new HashMap<>();
+        final Set<Integer> deleted = new HashSet<>();
+    }
+
+    /**
+     * Passes snapshot tasks through with the journal's changes applied, then adds the
+     * tasks that only exist in the journal.
+     */
+    private static class ReplayIterator implements Iterator<Task> {
+        private final Iterator<Task> snapshot;
+        private final Changes changes;
+        private Iterator<Task> addedTasks;
+        private Task next;
+
+        ReplayIterator(Iterator<Task> snapshot, Changes changes) {
+            this.snapshot = snapshot;
+            this.changes = changes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && snapshot.hasNext()) {
+                Task task = snapshot.next();
+                Task replacement = changes.added.remove(task.getId());
+                if (replacement != null) {
+                    next = replacement;
+                } else if (!changes.deleted.contains(task.getId())) {
+                    Boolean isDone = changes.marks.get(task.getId());
+                    if (isDone != null) {
+                        task.setDone(isDone);
+                    }
+                    next = task;
+                }
+            }
+            if (next == null) {
+                if (addedTasks == null) {
+                    addedTasks = changes.added.values().iterator();
+                }
+                if (addedTasks.hasNext()) {
+                    next = addedTasks.next();
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            next = null;
+            return task;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package lebron.storage;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import lebron.task.*;
+
+/**
+ * A hand-written decoder for the pipe-separated text format ({@code T | 1 | read book}).
+ *
+ * It walks the line once, finds the {@code " | "} separators by index and reads the type,
+ * done flag and timestamps straight out of the characters. Unlike {@code String.split},
+ * it never runs a regex or builds an array of substrings - the only objects it creates
+ * are the description string and the final task.
+ *
+ * It accepts exactly what the old split-based parser accepted, including its quirks: a
+ * description can't contain {@code " | "}, and empty trailing fields are ignored.
+ */
+public class TaskLineDecoder {
+    private TaskLineDecoder() {
+    }
+
+    /**
+     * Decodes a whole line.
+     *
+     * @param line the line to decode
+     * @return the task, or null if the line isn't a valid task
+     */
+    public static Task decode(CharSequence line) {
+        return decode(line, 0, line.length());
+    }
+
+    /**
+     * Decodes the task stored between two positions of a larger buffer.
+     *
+     * @param text the buffer holding the line
+     * @param start index of the first character of the line
+     * @param end index just past the last character of the line
+     * @return the task, or null if the line isn't a valid task
+     */
+    public static Task decode(CharSequence text, int start, int end) {
+        int field0End = indexOfSeparator(text, start, end);
+        int field1Start = field0End + 3;
+        int field1End = indexOfSeparator(text, field1Start, end);
+        int field2Start = field1End + 3;
+        int field2End = indexOfSeparator(text, field2Start, end);
+        int field3Start = field2End + 3;
+        int field3End = indexOfSeparator(text, field3Start, end);
+        int field4Start = field3End + 3;
+        int field4End = indexOfSeparator(text, field4Start, end);
+
+        int fieldCount = (field0End == end) ? 1 : (field1End == end) ? 2 : (field2End == end) ? 3
+                : (field3End == end) ? 4 : 5;
+        // Like String.split, forget about empty fields at the very end of the line
+        if (fieldCount == 5 && field4End == end && field4End == field4Start) {
+            fieldCount--;
+        }
+        if (fieldCount == 4 && field3End == field3Start) {
+            fieldCount--;
+        }
+        if (fieldCount == 3 && field2End == field2Start) {
+            fieldCount--;
+        }
+        if (fieldCount < 3) {
+            return null;
+        }
+
+        boolean isDone = field1End - field1Start == 1 && text.charAt(field1Start) == '1';
+        try {
+            Task task = null;
+            if (field0End - start == 1) {
+                switch (text.charAt(start)) {
+                    case 'T':
+                        task = new Todo(text.subSequence(field2Start, field2End).toString());
+                        break;
+                    case 'D':
+                        if (fieldCount >= 4) {
+                            LocalDateTime by = decodeDateTime(text, field3Start, field3End);
+                            task = new Deadline(text.subSequence(field2Start, field2End).toString(), by);
+                        }
+                        break;
+                    case 'E':
+                        if (fieldCount >= 5) {
+                            LocalDateTime from = decodeDateTime(text, field3Start, field3End);
+                            LocalDateTime to = decodeDateTime(text, field4Start, field4End);
+                            task = new Event(text.subSequence(field2Start, field2End).toString(), from, to);
+                        }
+                        break;
+                }
+            }
+
+            if (task != null) {
+                task.setDone(isDone);
+            }
+            return task;
+        } catch (DateTimeException e) {
+            System.err.println("Error parsing task from file: " + text.subSequence(start, end)
+                    + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads an ISO date-time such as {@code 2024-12-25T14:00} or {@code 2024-12-25T14:00:00}.
+     *
+     * The common shapes are decoded digit by digit; anything fancier (like fractional
+     * seconds) goes through the regular {@code LocalDateTime.parse}.
+     */
+    static LocalDateTime decodeDateTime(CharSequence text, int start, int end) {
+        int length = end - start;
+        if ((length == 16 || length == 19)
+                && text.charAt(start + 4) == '-' && text.charAt(start + 7) == '-'
+                && text.charAt(start + 10) == 'T' && text.charAt(start + 13) == ':'
+                && (length == 16 || text.charAt(start + 16) == ':')) {
+            int year = digits(text, start, 4);
+            int month = digits(text, start + 5, 2);
+            int day = digits(text, start + 8, 2);
+            int hour = digits(text, start + 11, 2);
+            int minute = digits(text, start + 14, 2);
+            int second = (length == 19) ? digits(text, start + 17, 2) : 0;
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0 && second >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(text.subSequence(start, end));
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Finds the next {@code " | "} at or after {@code from}, or {@code end} if there isn't one.
+     */
+    private static int indexOfSeparator(CharSequence text, int from, int end) {
+        for (int i = from; i + 2 < end; i++) {
+            if (text.charAt(i + 1) == '|' && text.charAt(i) == ' ' && text.charAt(i + 2) == ' ') {
+                return i;
+            }
+        }
+        return end;
+    }
+}
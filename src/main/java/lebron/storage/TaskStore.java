@@ -0,0 +1,93 @@
+package lebron.storage;
+
+import java.util.List;
+import java.util.stream.Stream;
+import lebron.data.TaskList;
+import lebron.task.Task;
+
+/**
+ * Everything Lebron needs from a place that keeps your tasks between sessions.
+ *
+ * There is more than one way to lay tasks out on disk (one flat file with a journal,
+ * or a folder of smaller segment files), but the chatbot only ever talks to them
+ * through these few methods.
+ */
+public interface TaskStore {
+
+    /**
+     * Loads all your saved tasks, in list order.
+     *
+     * @return the saved tasks (empty if nothing has been saved yet)
+     */
+    List<Task> load();
+
+    /**
+     * Streams your saved tasks in list order, reading them as they are needed.
+     *
+     * Handy for read-only jobs over big task files. Close the stream when you're done
+     * so the file is closed too. Stores that can't stream just load everything first.
+     *
+     * @return the saved tasks, in list order
+     */
+    default Stream<Task> stream() {
+        return load().stream();
+    }
+
+    /**
+     * Saves the complete task list, replacing whatever was stored before.
+     *
+     * @param tasks the complete list of tasks to save
+     */
+    void save(List<Task> tasks);
+
+    /**
+     * Saves whatever changed in the task list since it was last saved, then tells the
+     * list its changes are saved.
+     *
+     * Stores that can't write single tasks just save the whole list.
+     *
+     * @param tasks the task list whose changes should be saved
+     */
+    default void saveChanges(TaskList tasks) {
+        save(tasks.getAllTasks());
+        tasks.clearChanges();
+    }
+
+    /**
+     * Remembers that a task was added.
+     *
+     * @param task the task that was just added (it must already have its id)
+     */
+    void recordAdded(Task task);
+
+    /**
+     * Remembers that a task was marked or unmarked.
+     *
+     * @param task the task whose done status just changed
+     */
+    void recordMarked(Task task);
+
+    /**
+     * Remembers that a task was deleted.
+     *
+     * @param task the task that was just removed
+     */
+    void recordDeleted(Task task);
+
+    /**
+     * Pushes any buffered changes out to disk.
+     *
+     * Stores that write everything straight away don't need to do anything here.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Flushes everything and makes sure it has really reached the disk.
+     *
+     * Call this once when the chatbot is shutting down.
+     */
+    default void close() {
+        flush();
+    }
+}
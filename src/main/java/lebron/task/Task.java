@@ -1,5 +1,8 @@
 package lebron.task;
 
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
 /**
  * The base class for all types of tasks in your list.
  * 
@@ -8,8 +11,12 @@ package lebron.task;
  * have a visual representation. This abstract class captures all that shared behavior.
  */
 public abstract class Task {
-    protected String description;
-    protected boolean done;
+    // Volatile so threads reading a ConcurrentTaskList snapshot see changes made by its writer
+    protected volatile String description;
+    protected volatile boolean done;
+    private int id;
+    private boolean dirty = true;
+    private BiConsumer<Task, String> descriptionListener;
 
     /**
      * Creates a new task with the given description.
@@ -36,7 +43,27 @@ public abstract class Task {
      * @param description the new description
      */
     public void setDescription(String description) {
+        String oldDescription = this.description;
         this.description = description;
+        if (!Objects.equals(description, oldDescription)) {
+            dirty = true;
+            if (descriptionListener != null) {
+                descriptionListener.accept(this, oldDescription);
+            }
+        }
+    }
+
+    /**
+     * Asks to be told whenever the description changes, so something like a search
+     * index can keep up.
+     * 
+     * A task has at most one listener; setting a new one replaces the old one.
+     * 
+     * @param listener called with this task and its old description after each change,
+     *                 or null to stop listening
+     */
+    public void setDescriptionListener(BiConsumer<Task, String> listener) {
+        this.descriptionListener = listener;
     }
 
     /**
@@ -54,9 +81,60 @@ public abstract class Task {
      * @param done true to mark as completed, false for pending
      */
     public void setDone(boolean done) {
+        if (done != this.done) {
+            dirty = true;
+        }
         this.done = done;
     }
 
+    /**
+     * Gets the stable id of this task.
+     * 
+     * Ids are handed out by the TaskList (or restored by Storage) and never change
+     * while the task is alive, so they can be used to refer to a task in the journal
+     * even after other tasks have been deleted in front of it.
+     * 
+     * @return the task id, or 0 if the task has not been given one yet
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gives this task its stable id.
+     * 
+     * Giving a task a different id makes it dirty, since its stored copy is filed under
+     * the old one.
+     * 
+     * @param id the id to use for this task
+     */
+    public void setId(int id) {
+        if (id != this.id) {
+            dirty = true;
+        }
+        this.id = id;
+    }
+
+    /**
+     * Checks if this task changed since it was last written to disk.
+     * 
+     * New tasks start out dirty; storage marks them clean once they are saved
+     * (or when they have just been loaded), and changing the description, done
+     * status or id makes them dirty again.
+     * 
+     * @return true if the stored copy of this task is out of date
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Notes that the stored copy of this task is now up to date.
+     */
+    public void markClean() {
+        this.dirty = false;
+    }
+
     /**
      * Gets the visual icon that represents this type of task.
      * 
@@ -3,6 +3,7 @@ package lebron.ui;
 import java.util.List;
 import javafx.scene.control.TextArea;
 import lebron.task.Task;
+import lebron.data.FreeTimeQuery;
 import lebron.data.FreeTimeSlot;
 
 /**
@@ -100,7 +101,15 @@ public class GuiUi {
         chatHistory.appendText(" OOPS!!! I'm sorry, but I don't know what that means :-(\n");
         chatHistory.appendText(" Try 'list', 'todo <description>', 'deadline <desc> /by <date>',\n");
         chatHistory.appendText(" 'event <desc> /from <start> /to <end>', 'mark <number>',\n");
-        chatHistory.appendText(" 'unmark <number>', 'delete <number>', 'find <keyword>', or 'bye'.\n");
+        chatHistory.appendText(" 'unmark <number>', 'delete <number>', 'find <keyword>', 'rank <words>', or 'bye'.\n");
+        showLine();
+        scrollToBottom();
+    }
+
+    public void showExternalChanges(int changeCount) {
+        showLine();
+        chatHistory.appendText(" Heads up! " + changeCount + " task(s) were changed somewhere else.\n");
+        chatHistory.appendText(" Your list is up to date now.\n");
         showLine();
         scrollToBottom();
     }
@@ -119,13 +128,30 @@ public class GuiUi {
         scrollToBottom();
     }
 
-    public void showFreeTimeResult(FreeTimeSlot freeSlot, int hoursNeeded) {
+    public void showRankedResults(List<Task> bestTasks, String query) {
+        showLine();
+        if (bestTasks.isEmpty()) {
+            chatHistory.appendText(" No tasks match any of: " + query + "\n");
+        } else {
+            chatHistory.appendText(" Here are your best matches, best first:\n");
+            for (int i = 0; i < bestTasks.size(); i++) {
+                chatHistory.appendText(" " + (i + 1) + "." + bestTasks.get(i).toString() + "\n");
+            }
+        }
+        showLine();
+        scrollToBottom();
+    }
+
+    public void showFreeTimeResults(List<FreeTimeSlot> freeSlots, FreeTimeQuery query) {
         showLine();
-        if (freeSlot == null) {
-            chatHistory.appendText(" Sorry, I couldn't find any free time slots of " + hoursNeeded + " hours.\n");
+        String length = FreeTimeSlot.formatDuration(query.getDuration());
+        if (freeSlots.isEmpty()) {
+            chatHistory.appendText(" Sorry, I couldn't find any free time slots of " + length + ".\n");
         } else {
-            chatHistory.appendText(" Found a free time slot:\n");
-            chatHistory.appendText("   " + freeSlot.toString() + "\n");
+            chatHistory.appendText(" Found " + freeSlots.size() + " free time slot(s):\n");
+            for (FreeTimeSlot freeSlot : freeSlots) {
+                chatHistory.appendText("   " + freeSlot.toString() + "\n");
+            }
         }
         showLine();
         scrollToBottom();
@@ -3,6 +3,7 @@ package lebron.ui;
 import java.util.Scanner;
 import java.util.List;
 import lebron.task.Task;
+import lebron.data.FreeTimeQuery;
 import lebron.data.FreeTimeSlot;
 
 /**
@@ -120,7 +121,7 @@ public class Ui {
                   " Try 'list', 'todo <description>', 'deadline <desc> /by <date>',",
                   " 'event <desc> /from <start> /to <end>', 'mark <number>',",
                   " 'unmark <number>', 'delete <number>', 'find <keyword>',",
-                  " 'freetime <hours>', or 'bye'.");
+                  " 'rank <words>', 'freetime <duration>', or 'bye'.");
         showLine();
     }
 
@@ -147,26 +148,65 @@ public class Ui {
     }
 
     /**
-     * Shows the result of a free time search.
+     * Shows the results of a ranked search, best match first.
      * 
-     * If a free slot was found, displays the time and duration.
+     * @param bestTasks the best matching tasks, already cut down to the few worth showing
+     * @param query what you were searching for (for the message)
+     */
+    public void showRankedResults(List<Task> bestTasks, String query) {
+        showLine();
+        if (bestTasks.isEmpty()) {
+            System.out.println(" No tasks match any of: " + query);
+        } else {
+            System.out.println(" Here are your best matches, best first:");
+            for (int i = 0; i < bestTasks.size(); i++) {
+                System.out.println(" " + (i + 1) + "." + bestTasks.get(i).toString());
+            }
+        }
+        showLine();
+    }
+
+    /**
+     * Shows the results of a free time search.
+     * 
+     * If free slots were found, lists them earliest first with their times and length.
      * If no free time is available, provides a helpful message.
      * 
-     * @param freeSlot the free time slot found, or null if none available
-     * @param hoursRequested the number of hours that were requested
+     * @param freeSlots the free slots found, earliest first (empty if none)
+     * @param query what was searched for (for the message)
      */
-    public void showFreeTimeResult(FreeTimeSlot freeSlot, int hoursRequested) {
+    public void showFreeTimeResults(List<FreeTimeSlot> freeSlots, FreeTimeQuery query) {
         showLine();
-        if (freeSlot == null) {
-            System.out.println(" Sorry, I couldn't find a " + hoursRequested + " hour free slot in the next 2 weeks.");
+        String length = FreeTimeSlot.formatDuration(query.getDuration());
+        if (freeSlots.isEmpty()) {
+            System.out.println(" Sorry, I couldn't find a " + length + " free slot in the next "
+                    + query.getDays() + " days.");
             System.out.println(" Your schedule is pretty packed! Maybe consider shorter time blocks?");
+        } else if (freeSlots.size() == 1) {
+            System.out.println(" Great news! I found a free slot of at least " + length + " for you:");
+            System.out.println(" " + freeSlots.get(0).toString());
         } else {
-            System.out.println(" Great news! I found a " + hoursRequested + " hour free slot for you:");
-            System.out.println(" " + freeSlot.toString());
+            System.out.println(" Great news! Here are your next free slots of at least " + length + ":");
+            for (int i = 0; i < freeSlots.size(); i++) {
+                System.out.println(" " + (i + 1) + "." + freeSlots.get(i).toString());
+            }
         }
         showLine();
     }
 
+    /**
+     * Lets you know that tasks were changed outside of Lebron (e.g. synced from another
+     * machine) and your list has been brought up to date.
+     * 
+     * @param changeCount how many tasks were added, changed or removed
+     */
+    public void showExternalChanges(int changeCount) {
+        showLine();
+        System.out.println(" Heads up! " + changeCount + " task(s) were changed somewhere else.");
+        System.out.println(" Your list is up to date now.");
+        showLine();
+    }
+
     /**
      * Cleans up resources when the chat session ends.
      */
@@ -0,0 +1,79 @@
+package lebron.data;
+
+import lebron.task.Task;
+import lebron.task.Todo;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+class ConcurrentTaskListTest {
+    @Test
+    void snapshot_doesNotChangeAfterwards() {
+        ConcurrentTaskList tasks = new ConcurrentTaskList(List.of(new Todo("read"), new Todo("write")));
+        TaskSnapshot before = tasks.snapshot();
+        tasks.add(new Todo("review"));
+        tasks.delete(0);
+        tasks.replace(0, new Todo("rewrite"));
+        tasks.markTask(1, true);
+
+        assertEquals("[[T][ ] read, [T][ ] write]", before.toString());
+        assertEquals(0, before.getVersion());
+        TaskSnapshot after = tasks.snapshot();
+        assertEquals("[[T][ ] rewrite, [T][X] review]", after.toString());
+        assertEquals(4, after.getVersion());
+        assertEquals(1, after.findTasks("REV").size());
+        assertNull(tasks.delete(5));
+        assertEquals(4, tasks.snapshot().getVersion());
+    }
+    @Test
+    void snapshot_readersSeeWholeVersionsWhileWriterRuns() throws InterruptedException {
+        ConcurrentTaskList tasks = new ConcurrentTaskList();
+        AtomicReference<String> problem = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 5000; i++) {
+                tasks.add(new Todo("task " + i));
+                if (i % 4 == 3) {
+                    tasks.delete(0);
+                }
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                long lastVersion = -1;
+                while (writer.isAlive() || lastVersion < 0) {
+                    TaskSnapshot snapshot = tasks.snapshot();
+                    int count = 0;
+                    int lastNumber = -1;
+                    for (Task task : snapshot) {
+                        int number = Integer.parseInt(task.getDescription().substring(5));
+                        if (number <= lastNumber) {
+                            problem.set("out of order in version " + snapshot.getVersion());
+                        }
+                        lastNumber = number;
+                        count++;
+                    }
+                    if (count != snapshot.size() || snapshot.getVersion() < lastVersion) {
+                        problem.set("inconsistent version " + snapshot.getVersion());
+                    }
+                    lastVersion = snapshot.getVersion();
+                }
+            }));
+        }
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(problem.get());
+        assertEquals(5000 - 1250, tasks.size());
+        assertEquals("task 1250", tasks.get(0).getDescription());
+        assertEquals(6250, tasks.snapshot().getVersion());
+    }}
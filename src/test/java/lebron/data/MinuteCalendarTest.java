@@ -0,0 +1,40 @@
+package lebron.data;
+
+import lebron.task.Event;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+class MinuteCalendarTest {
+    @Test
+    void findFreeTimes_parallelSearch_matchesDayByDaySearch() {
+        IntervalTree tree = new IntervalTree();
+        MinuteCalendar calendar = new MinuteCalendar(tree);
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < 5000; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(400 * 24 * 60));
+            Event event = new Event("event " + i, from, from.plusMinutes(30 + random.nextInt(300)));
+            tree.add(event);
+            calendar.add(event);
+        }
+
+        String[] queries = {"30m /days 400", "3h /count 5 /days 400", "6h /count 1000 /days 400 /hours 8-20",
+            "10h /count 3 /days 730 /hours 7-19", "12h /days 400 /hours 9-21"};
+        for (String text : queries) {
+            FreeTimeQuery query = FreeTimeQuery.parse(text);
+            for (int i = 0; i < 5; i++) {
+                LocalDateTime start = base.plusMinutes(random.nextInt(100 * 24 * 60)).plusSeconds(i);
+                List<FreeTimeSlot> expected = calendar.findFreeTimesSequentially(query, start);
+                List<FreeTimeSlot> actual = calendar.findFreeTimes(query, start);
+                assertEquals(expected.size(), actual.size(), text);
+                for (int j = 0; j < expected.size(); j++) {
+                    assertEquals(expected.get(j).getStart(), actual.get(j).getStart(), text);
+                    assertEquals(expected.get(j).getEnd(), actual.get(j).getEnd(), text);
+                }
+            }
+        }
+    }}
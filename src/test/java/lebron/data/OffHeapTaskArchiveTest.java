@@ -0,0 +1,86 @@
+package lebron.data;
+
+import lebron.task.Deadline;
+import lebron.task.Event;
+import lebron.task.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+class OffHeapTaskArchiveTest {
+    @Test
+    void archive_answersLikeTaskList(@TempDir Path tempDir) throws IOException {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 0, 0);
+        TaskList taskList = new TaskList();
+        taskList.add(new Todo("Read BOOK"));
+        taskList.add(new Deadline("return book", monday.withHour(18)));
+        taskList.add(new Event("Book club", monday.withHour(9), monday.withHour(12)));
+        taskList.add(new Todo("caf\u00e9 visit"));
+        taskList.add(new Event("last year", monday.minusYears(1), monday.minusYears(1).plusHours(5)));
+        taskList.markTask(1, true);
+
+        OffHeapTaskArchive archive = OffHeapTaskArchive.of(taskList.getAllTasks());
+        Path path = tempDir.resolve("tasks.archive");
+        archive.save(path);
+        OffHeapTaskArchive reopened = OffHeapTaskArchive.open(path);
+
+        for (OffHeapTaskArchive copy : List.of(archive, reopened)) {
+            assertEquals(taskList.size(), copy.size());
+            for (int i = 0; i < taskList.size(); i++) {
+                assertEquals(taskList.get(i).toString(), copy.get(i).toString());
+                assertEquals(taskList.get(i).getId(), copy.get(i).getId());
+            }
+            assertNull(copy.get(copy.size()));
+            for (String keyword : new String[] {"book", "BOOK c", "CAF\u00c9", "zzz", " "}) {
+                assertEquals(taskList.findTasks(keyword).toString(), copy.findTasks(keyword).toString(), keyword);
+            }
+            assertEquals(taskList.findNextFreeTime(4, monday).getStart(), copy.findNextFreeTime(4, monday).getStart());
+            assertEquals(monday.withHour(12), copy.findNextFreeTime(4, monday).getStart());
+        }
+    }
+    @Test
+    void open_rejectsOtherFiles(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("notes.txt");
+        Files.writeString(path, "T | 0 | not an archive at all");
+        assertThrows(IOException.class, () -> OffHeapTaskArchive.open(path));
+    }
+    @Test
+    void save_overTheFileItWasOpenedFrom_keepsBothUsable(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("tasks.archive");
+        OffHeapTaskArchive.of(List.of(new Todo("read"), new Todo("write"))).save(path);
+        OffHeapTaskArchive opened = OffHeapTaskArchive.open(path);
+
+        opened.save(path);
+
+        assertEquals("[T][ ] write", opened.get(1).toString());
+        OffHeapTaskArchive reopened = OffHeapTaskArchive.open(path);
+        assertEquals(2, reopened.size());
+        assertEquals("[T][ ] write", reopened.get(1).toString());
+        assertFalse(Files.exists(tempDir.resolve("tasks.archive.tmp")));
+    }
+
+    @Test
+    void open_damagedHeaders_throwIOException(@TempDir Path tempDir) throws IOException {
+        Path path = tempDir.resolve("tasks.archive");
+        OffHeapTaskArchive.of(List.of(new Todo("read"), new Todo("write"))).save(path);
+        byte[] intact = Files.readAllBytes(path);
+        int secondRecord = 16 + OffHeapTaskArchive.RECORD_SIZE;
+
+        // A description running past the end of the file, a negative task count,
+        // and a type that doesn't exist
+        int[][] damages = {{secondRecord + 24, 1000}, {8, -1}, {secondRecord, 9 << 24}};
+        for (int[] damage : damages) {
+            ByteBuffer damaged = ByteBuffer.wrap(intact.clone());
+            damaged.putInt(damage[0], damage[1]);
+            Files.write(path, damaged.array());
+            assertThrows(IOException.class, () -> OffHeapTaskArchive.open(path));
+        }
+    }
+}
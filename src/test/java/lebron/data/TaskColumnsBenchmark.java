@@ -0,0 +1,89 @@
+package lebron.data;
+
+import lebron.task.Deadline;
+import lebron.task.Event;
+import lebron.task.Task;
+import lebron.task.Todo;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how much memory {@link TaskColumns} saves over keeping the same tasks as
+ * {@link Task} objects in an {@link ArrayList}, and how long reading them back takes.
+ *
+ * This isn't a unit test; run it by hand with {@code ./gradlew benchmark} (optionally
+ * {@code --args=<task count>}, a million by default). Memory is measured as the growth
+ * of the used heap after a few rounds of garbage collection, so give it a quiet JVM and
+ * a few gigabytes of heap, and treat the numbers as rough.
+ */
+public class TaskColumnsBenchmark {
+    private static final int DEFAULT_TASK_COUNT = 1_000_000;
+
+    /**
+     * Runs the benchmark and prints what it measured.
+     *
+     * @param args optionally, how many tasks to use
+     */
+    public static void main(String[] args) {
+        int taskCount = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_TASK_COUNT;
+
+        long baseline = usedMemory();
+        List<Task> objects = makeTasks(taskCount);
+        long objectBytes = usedMemory() - baseline;
+        TaskColumns columns = new TaskColumns(objects);
+        objects = null;
+        long columnBytes = usedMemory() - baseline;
+
+        System.out.printf("%,d tasks (a third each of todos, deadlines and events)%n", taskCount);
+        System.out.printf("Task objects in an ArrayList: %6.1f bytes/task%n", objectBytes / (double) taskCount);
+        System.out.printf("TaskColumns:                  %6.1f bytes/task%n", columnBytes / (double) taskCount);
+
+        long start = System.nanoTime();
+        long descriptionLength = 0;
+        for (int i = 0; i < taskCount; i++) {
+            descriptionLength += columns.get(i).getDescription().length();
+        }
+        System.out.printf("Putting together every task:  %6d ms (%d chars)%n",
+                (System.nanoTime() - start) / 1_000_000, descriptionLength);
+
+        start = System.nanoTime();
+        int doneCount = 0;
+        for (int i = 0; i < taskCount; i++) {
+            if (columns.isDone(i)) {
+                doneCount++;
+            }
+        }
+        System.out.printf("Reading every done flag:      %6d ms (%d done)%n",
+                (System.nanoTime() - start) / 1_000_000, doneCount);
+    }
+
+    private static List<Task> makeTasks(int taskCount) {
+        List<Task> tasks = new ArrayList<>(taskCount);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < taskCount; i++) {
+            String description = "task number " + i + " for the project";
+            Task task;
+            if (i % 3 == 0) {
+                task = new Todo(description);
+            } else if (i % 3 == 1) {
+                task = new Deadline(description, base.plusMinutes(i));
+            } else {
+                task = new Event(description, base.plusMinutes(i), base.plusMinutes(i + 60));
+            }
+            task.setId(i + 1);
+            task.setDone(i % 4 == 0);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
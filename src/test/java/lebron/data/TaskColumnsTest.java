@@ -0,0 +1,72 @@
+package lebron.data;
+
+import lebron.task.Deadline;
+import lebron.task.Event;
+import lebron.task.Task;
+import lebron.task.Todo;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class TaskColumnsTest {
+    @Test
+    void columns_keepTasksLikeAList() {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 9, 30);
+        TaskColumns columns = new TaskColumns(List.of(new Todo("read"), new Deadline("essay", monday)));
+        Event event = new Event("caf\u00e9 \u2615 meetup", monday, monday.plusHours(2));
+        event.setId(42);
+        event.setDone(true);
+        columns.add(1, event);
+        columns.add(null);
+
+        assertEquals(4, columns.size());
+        Task copy = columns.get(1);
+        assertTrue(copy instanceof Event);
+        assertEquals("caf\u00e9 \u2615 meetup", copy.getDescription());
+        assertEquals(monday.plusHours(2), ((Event) copy).getTo());
+        assertEquals(42, copy.getId());
+        assertTrue(copy.isDone());
+        assertEquals(monday, ((Deadline) columns.get(2)).getBy());
+        assertNull(columns.get(3));
+
+        columns.remove(0);
+        columns.setDone(1, true);
+        columns.set(0, new Todo("x".repeat(1000)));
+        assertEquals("x".repeat(1000), columns.getDescription(0));
+        assertTrue(columns.isDone(1));
+        assertFalse(columns.isDone(2));
+        assertEquals("[D][X] essay (by: Dec 16 2024 09:30)", columns.get(1).toString());
+
+        // Enough replacements to make the description array clear out its garbage
+        for (int i = 0; i < 2000; i++) {
+            columns.set(1, new Deadline("essay " + i, monday));
+        }
+        assertEquals("x".repeat(1000), columns.getDescription(0));
+        assertEquals("essay 1999", columns.getDescription(1));
+    }
+    @Test
+    void trimToSize_emptyDescription_staysReadable() {
+        TaskColumns columns = new TaskColumns();
+        columns.add(new Todo("abcdef"));
+        columns.add(new Todo(""));
+        columns.set(0, new Todo("x"));
+
+        columns.trimToSize();
+
+        assertEquals("x", columns.getDescription(0));
+        assertEquals("", columns.getDescription(1));
+        assertEquals("[T][ ] ", columns.get(1).toString());
+    }
+
+    @Test
+    void get_returnsCopy_soChangesGoThroughTheList() {
+        TaskColumns columns = new TaskColumns(List.of(new Todo("read")));
+
+        columns.get(0).setDone(true);
+        assertFalse(columns.isDone(0));
+        columns.setDone(0, true);
+        assertTrue(columns.get(0).isDone());
+    }
+}
@@ -0,0 +1,108 @@
+package lebron.data;
+
+import lebron.task.Todo;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+class TaskEngineTest {
+    @Test
+    void runsCommandsFromManyThreadsOneAtATime() throws InterruptedException {
+        List<CompletableFuture<Integer>> results = Collections.synchronizedList(new ArrayList<>());
+        try (TaskEngine engine = new TaskEngine(new TaskList())) {
+            List<Thread> senders = new ArrayList<>();
+            for (int s = 0; s < 4; s++) {
+                int sender = s;
+                senders.add(new Thread(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        Todo todo = new Todo("task " + sender + "-" + i);
+                        int size = engine.call(list -> {
+                            list.add(todo);
+                            return list.size();
+                        });
+                        // Whoever sent a command sees its change straight away
+                        if (engine.snapshot().size() < size || !engine.snapshot().contains(todo)) {
+                            results.add(CompletableFuture.failedFuture(new AssertionError("snapshot is behind")));
+                        }
+                        results.add(engine.submit(TaskList::size));
+                    }
+                }));
+            }
+            for (Thread sender : senders) {
+                sender.start();
+            }
+            for (Thread sender : senders) {
+                sender.join();
+            }
+
+            assertEquals(800, results.size());
+            for (CompletableFuture<Integer> result : results) {
+                assertTrue(result.join() > 0);
+            }
+            assertEquals(800, engine.snapshot().size());
+            assertEquals(800, engine.snapshot().getVersion());
+            assertEquals(1, engine.call(list -> list.findTasks("task 3-199")).size());
+        }
+    }
+
+    @Test
+    void failedCommandOnlyFailsItsOwnFuture() {
+        try (TaskEngine engine = new TaskEngine(new TaskList(List.of(new Todo("read"))))) {
+            assertThrows(IllegalArgumentException.class, () -> engine.call(list -> {
+                throw new IllegalArgumentException("no thanks");
+            }));
+            assertNull(engine.call(list -> list.get(5)));
+            engine.call(list -> {
+                list.markTask(0, true);
+                return null;
+            });
+
+            assertTrue(engine.snapshot().get(0).isDone());
+            assertEquals(1, engine.snapshot().getVersion());
+        }
+    }
+
+    @Test
+    void turnsCommandsAwayWhenFullOrClosed() throws InterruptedException {
+        TaskEngine engine = new TaskEngine(new TaskList(), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> blocker = engine.submit(list -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        started.await();
+        CompletableFuture<Integer> waiting = engine.submit(list -> {
+            list.add(new Todo("queued"));
+            return list.size();
+        });
+        CompletableFuture<Integer> turnedAway = engine.submit(list -> {
+            list.add(new Todo("lost"));
+            return list.size();
+        });
+
+        CompletionException rejection = assertThrows(CompletionException.class, turnedAway::join);
+        assertTrue(rejection.getCause() instanceof RejectedExecutionException);
+
+        release.countDown();
+        engine.close();
+        blocker.join();
+        assertEquals(1, (int) waiting.join());
+        assertEquals(1, engine.snapshot().size());
+        assertEquals("queued", engine.snapshot().get(0).getDescription());
+        assertThrows(RejectedExecutionException.class, () -> engine.call(TaskList::size));
+        engine.close();
+    }
+}
@@ -8,8 +8,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 class TaskListTest {
     private TaskList taskList;
@@ -343,4 +347,391 @@ class TaskListTest {
         List<Task> results = taskList.findTasks("  book  ");
         assertEquals(2, results.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getChangedTasks_tracksMarksAndDeletesUntilCleared() {
+        taskList.add(todoTask);
+        taskList.add(deadlineTask);
+        taskList.add(eventTask);
+        taskList.clearChanges();
+        assertTrue(taskList.getChangedTasks().isEmpty());
+
+        taskList.markTask(1, true);
+        taskList.markTask(2, false);
+        Task deleted = taskList.delete(0);
+
+        assertEquals(List.of(deadlineTask), taskList.getChangedTasks());
+        assertEquals(List.of(deleted), taskList.getDeletedTasks());
+        taskList.clearChanges();
+        assertTrue(taskList.getChangedTasks().isEmpty());
+        assertTrue(taskList.getDeletedTasks().isEmpty());
+    }
+
+    @Test
+    void findTasks_indexFollowsAddsDeletesAndEdits() {
+        taskList.add(todoTask); // "read book"
+        taskList.add(new Todo("notebook shopping"));
+        assertEquals(2, taskList.findTasks("book").size());
+
+        taskList.add(new Todo("book club"));
+        taskList.delete(0);
+        todoTask.setDescription("read magazine");
+        taskList.get(0).setDescription("notepad shopping");
+
+        List<Task> results = taskList.findTasks("book");
+        assertEquals(1, results.size());
+        assertEquals("book club", results.get(0).getDescription());
+        assertTrue(taskList.findTasks("magazine").isEmpty());
+        assertEquals(1, taskList.findTasks("pad sho").size());
+    }
+
+    @Test
+    void findTasks_matchesPlainSubstringScan() {
+        String[] descriptions = {"read book", "Book review", "notebook", "e-book (draft)", "book-keeping",
+            "bookkeeping 2024", "r\u00e9sum\u00e9 book", "read  book", "a b c", "x!y"};
+        String[] keywords = {"book", "ook", "read book", "book r", "k (d", "-", "!", "e-b", "ok-ke", "\u00e9",
+            "2024", "b c", "a b c", "read  book", "zzz"};
+        for (String description : descriptions) {
+            taskList.add(new Todo(description));
+        }
+        taskList.replace(3, new Todo("ebook"));
+
+        for (String keyword : keywords) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : taskList.getAllTasks()) {
+                if (task.getDescription().toLowerCase().contains(keyword.toLowerCase())) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected, taskList.findTasks(keyword), keyword);
+        }
+    }
+
+    @Test
+    void findTasks_midWordSubstring_followsEdits() {
+        taskList.add(new Todo("buy groceries"));
+        taskList.add(new Todo("sorcerer's apprentice"));
+        taskList.add(new Todo("grocery list"));
+        assertEquals(2, taskList.findTasks("ocer").size());
+
+        taskList.get(0).setDescription("buy milk");
+        taskList.replace(2, new Todo("microcerebellum"));
+        taskList.delete(1);
+
+        List<Task> results = taskList.findTasks("ocer");
+        assertEquals(1, results.size());
+        assertEquals("microcerebellum", results.get(0).getDescription());
+        assertEquals(1, taskList.findTasks("y mil").size());
+    }
+
+    @Test
+    void rankTasks_bestMatchesFirst_andOnlyTheTopFew() {
+        taskList.add(new Todo("buy milk"));
+        taskList.add(new Todo("plan team meeting agenda for the quarterly planning session"));
+        taskList.add(new Todo("meeting"));
+        taskList.add(new Todo("planned meetings"));
+        taskList.add(new Todo("meeting notes"));
+
+        List<Task> results = taskList.rankTasks("planning meetings", 2);
+        assertEquals(2, results.size());
+        assertEquals("planned meetings", results.get(0).getDescription());
+        assertEquals("plan team meeting agenda for the quarterly planning session",
+                results.get(1).getDescription());
+
+        assertEquals(4, taskList.rankTasks("meeting", 10).size());
+        assertEquals("meeting", taskList.rankTasks("meeting", 10).get(0).getDescription());
+        assertTrue(taskList.rankTasks("groceries", 10).isEmpty());
+        assertTrue(taskList.rankTasks("  ", 10).isEmpty());
+
+        taskList.delete(3);
+        taskList.get(0).setDescription("buy milk before the meeting");
+        assertEquals(4, taskList.rankTasks("meetings", 10).size());
+        assertEquals("plan team meeting agenda for the quarterly planning session",
+                taskList.rankTasks("planning meetings", 1).get(0).getDescription());
+    }
+
+    @Test
+    void stem_commonEndings_shareTheirStem() {
+        assertEquals(RankedIndex.stem("meeting"), RankedIndex.stem("meetings"));
+        assertEquals(RankedIndex.stem("plan"), RankedIndex.stem("planning"));
+        assertEquals(RankedIndex.stem("plan"), RankedIndex.stem("planned"));
+        assertEquals(RankedIndex.stem("party"), RankedIndex.stem("parties"));
+        assertEquals(RankedIndex.stem("box"), RankedIndex.stem("boxes"));
+        assertEquals("class", RankedIndex.stem("class"));
+        assertEquals("sing", RankedIndex.stem("sing"));
+        assertEquals("call", RankedIndex.stem("calling"));
+    }
+
+    @Test
+    void findSimilarTasks_toleratesTyposInEveryWord() {
+        taskList.add(eventTask); // "project meeting"
+        taskList.add(new Todo("meeting notes"));
+        taskList.add(new Todo("meet bob"));
+        taskList.add(new Todo("greeting cards"));
+
+        assertTrue(taskList.findTasks("meetnig").isEmpty());
+        List<Task> results = taskList.findSimilarTasks("meetnig");
+        assertEquals(2, results.size());
+        assertEquals(eventTask, results.get(0));
+        assertEquals("meeting notes", results.get(1).getDescription());
+
+        assertEquals(List.of(eventTask), taskList.findSimilarTasks("projcet meetnig"));
+        assertEquals(1, taskList.findSimilarTasks("bob").size());
+        assertTrue(taskList.findSimilarTasks("bo").isEmpty());
+
+        taskList.delete(1);
+        taskList.add(new Todo("team meting"));
+        assertEquals(3, taskList.findSimilarTasks("MEETING").size());
+        assertEquals("team meting", taskList.findSimilarTasks("meeting").get(2).getDescription());
+    }
+
+    @Test
+    void findTasksMatching_regexAndWildcard_matchIgnoringCase() {
+        taskList.add(todoTask); // "read book"
+        taskList.add(new Todo("Book club meeting"));
+        taskList.add(new Todo("bookshelf for the club"));
+        taskList.add(new Todo("meetings"));
+
+        assertEquals(2, taskList.findTasksMatching("book*club").size());
+        assertEquals("Book club meeting", taskList.findTasksMatching("book*club").get(0).getDescription());
+        assertEquals(2, taskList.findTasksMatching("/meet(ing)?s?$/").size());
+        assertEquals(List.of(todoTask), taskList.findTasksMatching("/^r\\w+ b/"));
+        assertTrue(taskList.findTasksMatching("/xyz|abc/").isEmpty());
+
+        assertTrue(TaskList.isPattern("/meet/"));
+        assertTrue(TaskList.isPattern("a*b"));
+        assertFalse(TaskList.isPattern("meet"));
+        assertThrows(IllegalArgumentException.class, () -> taskList.findTasksMatching("/(unclosed/"));
+    }
+
+    @Test
+    void findTasksMatching_pathologicalRegex_givesUpInsteadOfHanging() {
+        taskList.add(new Todo("aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaac b"));
+        assertThrows(IllegalArgumentException.class, () -> taskList.findTasksMatching("/(.*a){25}b/"));
+    }
+
+    @Test
+    void findTasksMatching_escapesWithOperands_stillFindTheTask() {
+        taskList.add(new Todo("Abc meeting"));
+        taskList.add(new Todo("bell \u0001bc"));
+        String[] patterns = {"/\\x41bc/", "/\\u0041bc/", "/\\0101bc/", "/\\x{41}bc/", "/\\p{Lu}bc/",
+            "/\\P{Cc}bc/", "/\\N{LATIN CAPITAL LETTER A}bc/", "/\\b{g}Abc/", "/(A)\\1?bc/",
+            "/(?<first>A)\\k<first>?bc/"};
+        for (String pattern : patterns) {
+            assertEquals(List.of(taskList.get(0)), taskList.findTasksMatching(pattern), pattern);
+        }
+        assertEquals(List.of(taskList.get(1)), taskList.findTasksMatching("/\\cAbc/"));
+    }
+
+    @Test
+    void requiredLiterals_skipsAnythingOptional() {
+        assertEquals(List.of("book", "club"), PatternSearch.requiredLiterals("Book.*club"));
+        assertEquals(List.of("mee", "s"), PatternSearch.requiredLiterals("meet?(ing)s"));
+        assertEquals(List.of("a.b"), PatternSearch.requiredLiterals("a\\.b"));
+        assertEquals(List.of("x", "z"), PatternSearch.requiredLiterals("x[a-z]+y{2}z"));
+        assertTrue(PatternSearch.requiredLiterals("book|club").isEmpty());
+        assertTrue(PatternSearch.requiredLiterals("\\x41bc").isEmpty());
+        assertTrue(PatternSearch.requiredLiterals("\\p{Lu}bc").isEmpty());
+        assertEquals(List.of("a", "bc"), PatternSearch.requiredLiterals("a\\dbc"));
+    }
+
+    @Test
+    void findTasks_afterReplace_keepsListOrder() {
+        taskList.add(new Todo("book one"));
+        taskList.add(new Todo("book two"));
+        taskList.add(new Todo("book three"));
+        assertEquals(3, taskList.findTasks("book").size());
+
+        taskList.replace(1, new Todo("ebook two"));
+        List<Task> results = taskList.findTasks("book");
+        assertEquals("ebook two", results.get(1).getDescription());
+        assertEquals("ebook two", taskList.findTasks("ook t").get(0).getDescription());
+    }
+
+    @Test
+    void findNextFreeTime_skipsBusyDaysAndFollowsChanges() {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 8, 0);
+        Event allDay = new Event("conference", monday.withHour(9), monday.withHour(21));
+        taskList.add(allDay);
+        taskList.add(new Event("standup", monday.plusDays(1).withHour(9), monday.plusDays(1).withHour(10)));
+        taskList.add(new Event("lunch", monday.plusDays(1).withHour(12), monday.plusDays(1).withHour(13)));
+
+        FreeTimeSlot slot = taskList.findNextFreeTime(2, monday);
+        assertEquals(monday.plusDays(1).withHour(10), slot.getStart());
+        assertEquals(monday.plusDays(1).withHour(13), taskList.findNextFreeTime(3, monday).getStart());
+
+        taskList.add(new Event("offsite", monday.plusDays(1).withHour(10), monday.plusDays(1).withHour(21)));
+        assertEquals(monday.plusDays(2).withHour(9), taskList.findNextFreeTime(2, monday).getStart());
+
+        taskList.delete(0);
+        assertEquals(monday.withHour(9), taskList.findNextFreeTime(2, monday).getStart());
+    }
+
+    @Test
+    void intervalTree_findOverlapping_matchesFullScan() {
+        IntervalTree tree = new IntervalTree();
+        List<Event> events = new ArrayList<>();
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = base.plusHours(random.nextInt(2000));
+            Event event = new Event("event " + i, from, from.plusHours(random.nextInt(72)));
+            events.add(event);
+            tree.add(event);
+            if (i % 3 == 0) {
+                Event removed = events.remove(random.nextInt(events.size()));
+                tree.remove(removed);
+            }
+        }
+        assertEquals(events.size(), tree.size());
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = base.plusHours(random.nextInt(2100));
+            LocalDateTime to = from.plusHours(random.nextInt(30));
+            List<Event> expected = new ArrayList<>();
+            for (Event event : events) {
+                if (!event.getTo().isBefore(from) && !event.getFrom().isAfter(to)) {
+                    expected.add(event);
+                }
+            }
+            List<Event> actual = tree.findOverlapping(from, to);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            for (int j = 1; j < actual.size(); j++) {
+                assertFalse(actual.get(j).getFrom().isBefore(actual.get(j - 1).getFrom()));
+            }
+        }
+    }
+
+    @Test
+    void findFreeTimes_returnsSeveralGapsOfAtLeastTheDuration() {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 0, 0);
+        LocalDateTime now = monday.withHour(10).withMinute(15).withSecond(30);
+        taskList.add(new Event("standup", monday.withHour(11).withMinute(0), monday.withHour(11).withMinute(30)));
+        taskList.add(new Event("review", monday.withHour(11).withMinute(15), monday.withHour(12).withMinute(0)));
+        taskList.add(new Event("lunch", monday.withHour(13).withMinute(0), monday.withHour(17).withMinute(0)));
+        taskList.add(new Event("trip", monday.plusDays(1).withHour(8), monday.plusDays(2).withHour(12)));
+
+        List<FreeTimeSlot> slots = taskList.findFreeTimes(FreeTimeQuery.parse("45m /count 4 /hours 9-18"), now);
+        assertEquals(4, slots.size());
+        assertEquals(monday.withHour(12).withMinute(0), slots.get(0).getStart());
+        assertEquals("1 hour", slots.get(0).getDurationString());
+        assertEquals(monday.withHour(17).withMinute(0), slots.get(1).getStart());
+        assertEquals(monday.plusDays(2).withHour(12).withMinute(0), slots.get(2).getStart());
+        assertEquals("6 hours", slots.get(2).getDurationString());
+        assertEquals(monday.plusDays(3).withHour(9).withMinute(0), slots.get(3).getStart());
+
+        // The 44 minutes before the standup are too short; nothing before 10:16 counts
+        slots = taskList.findFreeTimes(FreeTimeQuery.parse("44m /count 1"), now);
+        assertEquals(monday.withHour(10).withMinute(16), slots.get(0).getStart());
+        assertEquals("44 minutes", slots.get(0).getDurationString());
+
+        assertTrue(taskList.findFreeTimes(FreeTimeQuery.parse("10h /days 2 /hours 9-18"), monday).isEmpty());
+    }
+
+    @Test
+    void freeTimeQuery_parse_readsDurationAndOptions() {
+        FreeTimeQuery query = FreeTimeQuery.parse("1h30m /count 5 /days 60 /hours 8:30-17");
+        assertEquals(Duration.ofMinutes(90), query.getDuration());
+        assertEquals(5, query.getCount());
+        assertEquals(60, query.getDays());
+        assertEquals(LocalTime.of(8, 30), query.getDayStart());
+        assertEquals(LocalTime.of(17, 0), query.getDayEnd());
+
+        assertEquals(Duration.ofHours(3), FreeTimeQuery.parse("3").getDuration());
+        assertEquals(1, FreeTimeQuery.parse("90m").getCount());
+        assertThrows(IllegalArgumentException.class, () -> FreeTimeQuery.parse("soon"));
+        assertThrows(IllegalArgumentException.class, () -> FreeTimeQuery.parse("0"));
+        assertThrows(IllegalArgumentException.class, () -> FreeTimeQuery.parse("2h /weeks 3"));
+        assertThrows(IllegalArgumentException.class, () -> FreeTimeQuery.parse("2h /hours 18-9"));
+    }
+
+    @Test
+    void findFreeTimes_deletingOneOfOverlappingEvents_keepsTheOtherBusy() {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 0, 0);
+        FreeTimeQuery query = FreeTimeQuery.parse("1h /count 3 /days 2 /hours 9-17");
+        taskList.add(new Event("workshop", monday.withHour(9), monday.withHour(13)));
+        taskList.add(new Event("overnight", monday.withHour(12), monday.plusDays(1).withHour(10).withMinute(30)));
+        assertEquals(monday.plusDays(1).withHour(10).withMinute(30), taskList.findFreeTimes(query, monday).get(0).getStart());
+
+        taskList.delete(1);
+        List<FreeTimeSlot> slots = taskList.findFreeTimes(query, monday);
+        assertEquals(monday.withHour(13), slots.get(0).getStart());
+        assertEquals(monday.withHour(17), slots.get(0).getEnd());
+        assertEquals(monday.plusDays(1).withHour(9), slots.get(1).getStart());
+
+        taskList.replace(0, new Event("short workshop", monday.withHour(9), monday.withHour(9).withMinute(1)));
+        slots = taskList.findFreeTimes(query, monday);
+        assertEquals(monday.withHour(9).withMinute(1), slots.get(0).getStart());
+        assertEquals("7 hours 59 minutes", slots.get(0).getDurationString());
+    }
+
+    @Test
+    void findFreeTimes_repeatedQuery_isCachedUntilScheduleOrMinuteChanges() {
+        LocalDateTime monday = LocalDateTime.of(2024, 12, 16, 9, 0);
+        FreeTimeQuery query = FreeTimeQuery.parse("1h /count 2 /days 1 /hours 9-17");
+        taskList.add(new Event("standup", monday, monday.plusHours(1)));
+
+        List<FreeTimeSlot> first = taskList.findFreeTimes(query, monday);
+        assertEquals(first, taskList.findFreeTimes(FreeTimeQuery.parse("1h /count 2 /days 1 /hours 9-17"),
+                monday.plusSeconds(0)));
+        assertEquals(1, taskList.getFreeTimeCacheHits());
+        assertEquals(1, taskList.getFreeTimeCacheMisses());
+
+        // A different query or a later minute has to be searched for
+        taskList.findFreeTimes(FreeTimeQuery.parse("2h /count 2 /days 1 /hours 9-17"), monday);
+        taskList.findFreeTimes(query, monday.plusMinutes(1));
+        assertEquals(3, taskList.getFreeTimeCacheMisses());
+
+        // Todos don't change what is free, events do
+        taskList.add(new Todo("read"));
+        taskList.findFreeTimes(query, monday.plusMinutes(1));
+        assertEquals(2, taskList.getFreeTimeCacheHits());
+        taskList.add(new Event("lunch", monday.withHour(12), monday.withHour(13)));
+        List<FreeTimeSlot> slots = taskList.findFreeTimes(query, monday.plusMinutes(1));
+        assertEquals(4, taskList.getFreeTimeCacheMisses());
+        assertEquals(monday.withHour(12), slots.get(0).getEnd());
+
+        taskList.markTask(0, true);
+        taskList.findFreeTimes(query, monday.plusMinutes(1));
+        assertEquals(5, taskList.getFreeTimeCacheMisses());
+        taskList.delete(2);
+        slots = taskList.findFreeTimes(query, monday.plusMinutes(1));
+        assertEquals(6, taskList.getFreeTimeCacheMisses());
+        assertEquals(monday.withHour(17), slots.get(0).getEnd());
+    }
+
+    @Test
+    void positionsAndIds_matchArrayListAfterRandomChanges() {
+        List<Task> expected = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 3000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || expected.isEmpty()) {
+                Task task = new Todo("task " + i);
+                taskList.add(task);
+                expected.add(task);
+            } else if (choice < 8) {
+                int position = random.nextInt(expected.size());
+                assertSame(expected.remove(position), taskList.delete(position));
+            } else {
+                int position = random.nextInt(expected.size());
+                Task task = new Todo("replacement " + i);
+                assertSame(expected.set(position, task), taskList.replace(position, task));
+            }
+        }
+
+        assertEquals(expected.size(), taskList.size());
+        assertEquals(expected, new ArrayList<>(taskList.getAllTasks()));
+        for (int i = 0; i < expected.size(); i++) {
+            Task task = expected.get(i);
+            assertSame(task, taskList.get(i));
+            assertSame(task, taskList.getById(task.getId()));
+            assertEquals(i, taskList.indexOfId(task.getId()));
+        }
+        Task deleted = taskList.delete(0);
+        assertNull(taskList.getById(deleted.getId()));
+        assertEquals(-1, taskList.indexOfId(deleted.getId()));
+        assertNull(taskList.get(taskList.size()));
+    }
+}
@@ -187,6 +187,13 @@ class ParserTest {
         assertEquals("homework", command.getArgument());
     }
 
+    @Test
+    void parse_rankCommandWithWords_returnsRankCommand() {
+        Parser.Command command = Parser.parse("RANK project meetings");
+        assertEquals(Parser.CommandType.RANK, command.getType());
+        assertEquals("project meetings", command.getArgument());
+    }
+
     @Test
     void parse_findCommandWithMultipleWords_returnsFindCommand() {
         Parser.Command command = Parser.parse("find read book");
@@ -0,0 +1,628 @@
+package lebron.storage;
+
+import lebron.data.TaskList;
+import lebron.task.Task;
+import lebron.task.Todo;
+import lebron.task.Deadline;
+import lebron.task.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+class StorageTest {
+    private Storage storage;
+    private String testFilePath;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) {
+        testFilePath = tempDir.resolve("tasks.txt").toString();
+        storage = new Storage(testFilePath);
+    }
+
+    @Test
+    void recordAdded_appendsWithoutRewritingSnapshot() throws IOException {
+        TaskList tasks = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        tasks.add(todo);
+        storage.recordAdded(todo);
+
+        assertFalse(Files.exists(Paths.get(testFilePath)));
+        assertTrue(Files.size(Paths.get(testFilePath + ".journal")) > 0);
+    }
+
+    @Test
+    void load_replaysJournalOnTopOfSnapshot() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("task1"));
+        tasks.add(new Deadline("task2", "2024-12-25 1400"));
+        tasks.add(new Event("task3", "2024-12-25 1400", "2024-12-25 1600"));
+        storage.save(tasks.getAllTasks());
+
+        tasks = new TaskList(storage.load());
+        Task added = new Todo("task4");
+        tasks.add(added);
+        storage.recordAdded(added);
+        tasks.markTask(3, true);
+        storage.recordMarked(added);
+        storage.recordDeleted(tasks.delete(0));
+
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(3, loaded.size());
+        assertEquals("task2", loaded.get(0).getDescription());
+        assertEquals("task3", loaded.get(1).getDescription());
+        assertEquals("task4", loaded.get(2).getDescription());
+        assertTrue(loaded.get(2).isDone());
+    }
+
+    @Test
+    void load_compactsJournalIntoSnapshot() {
+        TaskList tasks = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        tasks.add(todo);
+        storage.recordAdded(todo);
+
+        storage.load();
+
+        assertTrue(Files.exists(Paths.get(testFilePath)));
+        assertFalse(Files.exists(Paths.get(testFilePath + ".journal")));
+        assertEquals(1, storage.load().size());
+    }
+
+    @Test
+    void load_truncatedJournalRecord_isSkipped() throws IOException {
+        TaskList tasks = new TaskList(storage.load());
+        Todo todo = new Todo("read book");
+        tasks.add(todo);
+        storage.recordAdded(todo);
+        Files.writeString(Paths.get(testFilePath + ".journal"), "A | 2 | T | 0", StandardOpenOption.APPEND);
+
+        List<Task> loaded = storage.load();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void open_directory_returnsSegmentedStorage(@TempDir Path tempDir) {
+        assertTrue(Storage.open(tempDir.toString()) instanceof SegmentedStorage);
+        assertTrue(Storage.open(testFilePath) instanceof Storage);
+    }
+
+    @Test
+    void segmentedStorage_saveAndLoad_keepsListOrder(@TempDir Path tempDir) {
+        SegmentedStorage segmented = new SegmentedStorage(tempDir.toString());
+        TaskList tasks = new TaskList();
+        tasks.add(new Event("meeting", "2024-12-20 1400", "2024-12-20 1600"));
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("submit", "2024-11-25 1400"));
+        tasks.add(new Deadline("return book", "2024-12-01"));
+        segmented.save(tasks.getAllTasks());
+
+        assertEquals(List.of("deadline-2024-11", "deadline-2024-12", "event-2024-12", "todo"),
+                segmented.getSegmentNames());
+        List<Task> loaded = new SegmentedStorage(tempDir.toString()).load();
+        assertEquals(4, loaded.size());
+        assertEquals("meeting", loaded.get(0).getDescription());
+        assertEquals("read book", loaded.get(1).getDescription());
+        assertEquals("submit", loaded.get(2).getDescription());
+        assertEquals("return book", loaded.get(3).getDescription());
+    }
+
+    @Test
+    void segmentedStorage_mark_rewritesOnlyItsSegment(@TempDir Path tempDir) throws IOException {
+        SegmentedStorage segmented = new SegmentedStorage(tempDir.toString());
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("submit", "2024-11-25 1400"));
+        segmented.save(tasks.getAllTasks());
+        Path todoSegment = tempDir.resolve("todo.txt");
+        Files.writeString(todoSegment, "untouched");
+
+        tasks.markTask(1, true);
+        segmented.recordMarked(tasks.get(1));
+
+        assertEquals("untouched", Files.readString(todoSegment));
+        assertTrue(Files.readString(tempDir.resolve("deadline-2024-11.txt")).contains("| D | 1 |"));
+    }
+
+    @Test
+    void segmentedStorage_addAndDelete_updateManifest(@TempDir Path tempDir) {
+        SegmentedStorage segmented = new SegmentedStorage(tempDir.toString());
+        TaskList tasks = new TaskList(segmented.load());
+        Task todo = new Todo("read book");
+        Task event = new Event("meeting", "2024-12-20 1400", "2024-12-20 1600");
+        tasks.add(todo);
+        segmented.recordAdded(todo);
+        tasks.add(event);
+        segmented.recordAdded(event);
+        assertEquals(List.of("event-2024-12", "todo"), segmented.getSegmentNames());
+
+        segmented.recordDeleted(tasks.delete(1));
+
+        assertEquals(List.of("todo"), segmented.getSegmentNames());
+        assertFalse(Files.exists(tempDir.resolve("event-2024-12.txt")));
+        List<Task> loaded = new SegmentedStorage(tempDir.toString()).load();
+        assertEquals(1, loaded.size());
+        assertEquals("read book", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void onExitPolicy_buffersUntilClose() {
+        Storage batched = new Storage(testFilePath, FlushPolicy.onExit());
+        TaskList tasks = new TaskList(batched.load());
+        for (int i = 0; i < 100; i++) {
+            Task todo = new Todo("task" + i);
+            tasks.add(todo);
+            batched.recordAdded(todo);
+        }
+        assertFalse(Files.exists(Paths.get(testFilePath + ".journal")));
+
+        batched.close();
+
+        assertEquals(100, new Storage(testFilePath).load().size());
+    }
+
+    @Test
+    void everyMutationsPolicy_flushesInBatches() throws InterruptedException {
+        Storage batched = new Storage(testFilePath, FlushPolicy.everyMutations(2));
+        TaskList tasks = new TaskList(batched.load());
+        Task first = new Todo("first");
+        tasks.add(first);
+        batched.recordAdded(first);
+        Task second = new Todo("second");
+        tasks.add(second);
+        batched.recordAdded(second);
+
+        Path journalPath = Paths.get(testFilePath + ".journal");
+        for (int i = 0; i < 100 && !Files.exists(journalPath); i++) {
+            Thread.sleep(10);
+        }
+        batched.close();
+
+        assertTrue(Files.exists(journalPath));
+        assertEquals(2, new Storage(testFilePath).load().size());
+    }
+
+    @Test
+    void close_afterClose_stillSavesLateChanges() {
+        Storage batched = new Storage(testFilePath, FlushPolicy.everyMillis(10_000));
+        TaskList tasks = new TaskList(batched.load());
+        batched.close();
+        Task todo = new Todo("late");
+        tasks.add(todo);
+        batched.recordAdded(todo);
+        batched.close();
+
+        assertEquals(1, new Storage(testFilePath).load().size());
+    }
+
+    @Test
+    void parallelTaskLoader_manyChunks_keepsFileOrder() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(i % 2 == 0 ? "T | 0 | task" + i : "D | 0 | task" + i + " | 2024-12-25T14:00:00").append("\n");
+        }
+        Files.writeString(Paths.get(testFilePath), text);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Task> loaded;
+        try {
+            loaded = new ParallelTaskLoader(pool, 64).load(Paths.get(testFilePath));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(500, loaded.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals("task" + i, loaded.get(i).getDescription());
+        }
+        assertTrue(loaded.get(1) instanceof Deadline);
+    }
+
+    @Test
+    void parallelTaskLoader_crlfAndBrokenLines_handledLikeSerialLoad() throws IOException {
+        Files.writeString(Paths.get(testFilePath), "T | 1 | first\r\ngarbage\r\n\r\nT | 0 | last");
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        List<Task> loaded;
+        try {
+            loaded = new ParallelTaskLoader(pool, 1).load(Paths.get(testFilePath));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(2, loaded.size());
+        assertEquals("first", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+        assertEquals("last", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void parallelTaskLoader_binaryBlocks_keepsFileOrder() throws IOException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 10_000; i++) {
+            tasks.add(new Todo("task" + i));
+        }
+        storage.save(tasks.getAllTasks());
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Task> loaded;
+        try {
+            loaded = new ParallelTaskLoader(pool, 64).load(Paths.get(testFilePath));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(10_000, loaded.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals("task" + i, loaded.get(i).getDescription());
+            assertEquals(i + 1, loaded.get(i).getId());
+        }
+    }
+
+    @Test
+    void save_writesBinaryFormatThatRoundTrips() throws IOException {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("na\u00efve caf\u00e9 \u2615", "1969-07-20 2017"));
+        tasks.add(new Event("meeting", "2024-12-20 1400", "2024-12-20 1600"));
+        tasks.markTask(2, true);
+        tasks.delete(0);
+        storage.save(tasks.getAllTasks());
+
+        byte[] header = Files.readAllBytes(Paths.get(testFilePath));
+        assertEquals('L', header[0]);
+        assertEquals('N', header[3]);
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(2, loaded.size());
+        assertEquals("na\u00efve caf\u00e9 \u2615", loaded.get(0).getDescription());
+        assertEquals(2, loaded.get(0).getId());
+        assertEquals(((Deadline) tasks.get(0)).getBy(), ((Deadline) loaded.get(0)).getBy());
+        assertEquals(3, loaded.get(1).getId());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals(((Event) tasks.get(1)).getTo(), ((Event) loaded.get(1)).getTo());
+    }
+
+    @Test
+    void load_legacyTextFile_isMigratedToBinary() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("E | 1 | project meeting " + i + " | 2024-12-20T14:00:00 | 2024-12-20T16:00:00\n");
+        }
+        Files.writeString(Paths.get(testFilePath), text);
+        long legacySize = Files.size(Paths.get(testFilePath));
+
+        List<Task> loaded = storage.load();
+
+        assertEquals(1000, loaded.size());
+        assertEquals("project meeting 999", loaded.get(999).getDescription());
+        assertTrue(loaded.get(999).isDone());
+        assertEquals('L', Files.readAllBytes(Paths.get(testFilePath))[0]);
+        assertTrue(Files.size(Paths.get(testFilePath)) * 2 < legacySize);
+        assertEquals(1000, new Storage(testFilePath).load().size());
+    }
+
+    @Test
+    void segmentedStorage_addBeforeLoad_keepsExistingSegments(@TempDir Path tempDir) {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("read book"));
+        tasks.add(new Deadline("submit", "2024-11-25 1400"));
+        new SegmentedStorage(tempDir.toString()).save(tasks.getAllTasks());
+
+        SegmentedStorage segmented = new SegmentedStorage(tempDir.toString());
+        Task event = new Event("meeting", "2024-12-20 1400", "2024-12-20 1600");
+        event.setId(3);
+        segmented.recordAdded(event);
+
+        assertEquals(List.of("deadline-2024-11", "event-2024-12", "todo"), segmented.getSegmentNames());
+        assertEquals(3, new SegmentedStorage(tempDir.toString()).load().size());
+        assertFalse(Files.exists(tempDir.resolve("manifest.txt.tmp")));
+    }
+
+    @Test
+    void saveChanges_mark_onlyChangesOneByte() throws IOException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks.getAllTasks());
+        byte[] before = Files.readAllBytes(Paths.get(testFilePath));
+
+        tasks = new TaskList(storage.load());
+        tasks.markTask(40, true);
+        storage.recordMarked(tasks.get(40));
+        storage.saveChanges(tasks);
+
+        byte[] after = Files.readAllBytes(Paths.get(testFilePath));
+        assertEquals(before.length, after.length);
+        int changedBytes = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (before[i] != after[i]) {
+                changedBytes++;
+            }
+        }
+        assertEquals(1, changedBytes);
+        assertFalse(Files.exists(Paths.get(testFilePath + ".journal")));
+        assertTrue(new Storage(testFilePath).load().get(40).isDone());
+    }
+
+    @Test
+    void saveChanges_addAndDelete_keepListOrder() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("task1"));
+        tasks.add(new Deadline("task2", "2024-12-25 1400"));
+        storage.save(tasks.getAllTasks());
+
+        tasks = new TaskList(storage.load());
+        tasks.add(new Event("task3", "2024-12-25 1400", "2024-12-25 1600"));
+        storage.saveChanges(tasks);
+        tasks.delete(0);
+        tasks.add(new Todo("task4"));
+        tasks.markTask(1, true);
+        storage.saveChanges(tasks);
+
+        assertTrue(tasks.getChangedTasks().isEmpty());
+        assertTrue(tasks.getDeletedTasks().isEmpty());
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(3, loaded.size());
+        assertEquals("task2", loaded.get(0).getDescription());
+        assertEquals("task3", loaded.get(1).getDescription());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals("task4", loaded.get(2).getDescription());
+    }
+
+    @Test
+    void saveChanges_changedDescription_rewritesWholeFile() {
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("task1"));
+        tasks.add(new Todo("task2"));
+        storage.save(tasks.getAllTasks());
+
+        tasks.get(0).setDescription("a much longer description");
+        storage.saveChanges(tasks);
+
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(2, loaded.size());
+        assertEquals("a much longer description", loaded.get(0).getDescription());
+        assertEquals("task2", loaded.get(1).getDescription());
+    }
+
+    @Test
+    void saveChanges_sameLengthDescription_isNotMistakenForMark() {
+        // "Aa" and "BB" have the same length and the same String.hashCode
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("Aa"));
+        storage.save(tasks.getAllTasks());
+
+        tasks = new TaskList(storage.load());
+        tasks.get(0).setDescription("BB");
+        storage.saveChanges(tasks);
+
+        assertEquals("BB", new Storage(testFilePath).load().get(0).getDescription());
+    }
+
+    @Test
+    void stream_appliesJournalWithoutWritingSnapshot() throws IOException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 5000; i++) {
+            tasks.add(new Todo("task " + i));
+        }
+        storage.save(tasks.getAllTasks());
+        byte[] snapshot = Files.readAllBytes(Paths.get(testFilePath));
+
+        tasks = new TaskList(storage.load());
+        Task added = new Todo("task 5000");
+        tasks.add(added);
+        storage.recordAdded(added);
+        tasks.markTask(4500, true);
+        storage.recordMarked(tasks.get(4500));
+        storage.recordDeleted(tasks.delete(0));
+
+        List<Task> streamed;
+        try (Stream<Task> stream = storage.stream()) {
+            streamed = stream.collect(Collectors.toList());
+        }
+        assertEquals(5000, streamed.size());
+        assertEquals("task 1", streamed.get(0).getDescription());
+        assertTrue(streamed.get(4499).isDone());
+        assertEquals("task 5000", streamed.get(4999).getDescription());
+        assertArrayEquals(snapshot, Files.readAllBytes(Paths.get(testFilePath)));
+        assertTrue(Files.exists(Paths.get(testFilePath + ".journal")));
+    }
+
+    @Test
+    void stream_legacyTextFile_isReadWithoutMigrating() throws IOException {
+        Files.writeString(Paths.get(testFilePath), "T | 0 | read book\nnot a task\nD | 1 | submit | 2024-12-25T14:00:00\n");
+
+        try (Stream<Task> stream = storage.stream()) {
+            List<Task> matching = stream.filter(task -> task.getDescription().contains("submit"))
+                    .collect(Collectors.toList());
+            assertEquals(1, matching.size());
+            assertEquals(2, matching.get(0).getId());
+            assertTrue(matching.get(0).isDone());
+        }
+        assertEquals('T', Files.readAllBytes(Paths.get(testFilePath))[0]);
+    }
+
+    @Test
+    void compressedSave_isSmallerAndLoadsEveryWay() throws IOException {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 10000; i++) {
+            tasks.add(new Event("project meeting " + i, "2024-12-20 1400", "2024-12-20 1600"));
+        }
+        tasks.markTask(9999, true);
+        storage.save(tasks.getAllTasks());
+        long plainSize = Files.size(Paths.get(testFilePath));
+
+        Storage compressed = new Storage(testFilePath, FlushPolicy.immediate(), true);
+        compressed.save(tasks.getAllTasks());
+        assertTrue(Files.size(Paths.get(testFilePath)) * 3 < plainSize);
+
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(10000, loaded.size());
+        assertEquals("project meeting 9999", loaded.get(9999).getDescription());
+        assertTrue(loaded.get(9999).isDone());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<Task> parallel;
+        try {
+            parallel = new ParallelTaskLoader(pool, 64).load(Paths.get(testFilePath));
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(10000, parallel.size());
+        assertEquals(((Event) tasks.get(5000)).getTo(), ((Event) parallel.get(5000)).getTo());
+        try (Stream<Task> stream = compressed.stream()) {
+            assertEquals(10000, stream.count());
+        }
+    }
+
+    @Test
+    void compressedSaveChanges_rewritesCompressedFile() {
+        Storage compressed = new Storage(testFilePath, FlushPolicy.immediate(), true);
+        TaskList tasks = new TaskList();
+        tasks.add(new Todo("task1"));
+        tasks.add(new Todo("task2"));
+        compressed.save(tasks.getAllTasks());
+
+        tasks.markTask(1, true);
+        tasks.delete(0);
+        compressed.saveChanges(tasks);
+
+        List<Task> loaded = compressed.load();
+        assertEquals(1, loaded.size());
+        assertEquals("task2", loaded.get(0).getDescription());
+        assertTrue(loaded.get(0).isDone());
+    }
+
+    @Test
+    void fileWatcher_appliesOnlyExternalChanges() throws InterruptedException {
+        TaskList original = new TaskList();
+        original.add(new Todo("task1"));
+        original.add(new Todo("task2"));
+        original.add(new Todo("task3"));
+        storage.save(original.getAllTasks());
+        TaskList tasks = new TaskList(storage.load());
+        Task local = tasks.get(0);
+        tasks.markTask(0, true);
+        TaskFileWatcher watcher = new TaskFileWatcher(storage);
+
+        watcher.fileChanged();
+        assertFalse(watcher.hasPendingChanges());
+
+        Thread.sleep(20);
+        Storage elsewhere = new Storage(testFilePath);
+        TaskList synced = new TaskList(elsewhere.load());
+        synced.markTask(1, true);
+        synced.delete(2);
+        synced.add(new Todo("added elsewhere"));
+        elsewhere.save(synced.getAllTasks());
+        watcher.fileChanged();
+
+        assertEquals(3, watcher.applyExternalChanges(tasks));
+        assertEquals(3, tasks.size());
+        assertSame(local, tasks.get(0));
+        assertTrue(tasks.get(1).isDone());
+        assertEquals("added elsewhere", tasks.get(2).getDescription());
+        assertEquals(0, watcher.applyExternalChanges(tasks));
+
+        storage.saveChanges(tasks);
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(3, loaded.size());
+        assertTrue(loaded.get(0).isDone());
+        assertTrue(loaded.get(1).isDone());
+        assertEquals("added elsewhere", loaded.get(2).getDescription());
+    }
+
+    @Test
+    void fileWatcher_taskDeletedHere_staysDeleted() throws IOException, InterruptedException {
+        TaskList original = new TaskList();
+        original.add(new Todo("keep me"));
+        original.add(new Todo("delete me"));
+        storage.save(original.getAllTasks());
+        byte[] synced = Files.readAllBytes(Paths.get(testFilePath));
+        TaskList tasks = new TaskList(storage.load());
+        storage.recordDeleted(tasks.delete(1));
+        TaskFileWatcher watcher = new TaskFileWatcher(storage);
+
+        // A sync tool puts back the copy it had before the delete
+        Thread.sleep(20);
+        Files.write(Paths.get(testFilePath), synced);
+        watcher.fileChanged();
+
+        assertEquals(0, watcher.applyExternalChanges(tasks));
+        assertEquals(1, tasks.size());
+        assertEquals("keep me", tasks.get(0).getDescription());
+        storage.saveChanges(tasks);
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(1, loaded.size());
+        assertEquals("keep me", loaded.get(0).getDescription());
+    }
+
+    @Test
+    void fileWatcher_sameIdAddedOnBothSides_keepsBothTasks(@TempDir Path otherDir)
+            throws IOException, InterruptedException {
+        TaskList original = new TaskList();
+        original.add(new Todo("shared"));
+        storage.save(original.getAllTasks());
+        TaskList tasks = new TaskList(storage.load());
+        Task local = new Todo("added here");
+        tasks.add(local);
+        storage.recordAdded(local);
+        TaskFileWatcher watcher = new TaskFileWatcher(storage);
+
+        Thread.sleep(20);
+        Path otherFile = otherDir.resolve("tasks.txt");
+        Files.copy(Paths.get(testFilePath), otherFile);
+        Storage elsewhere = new Storage(otherFile.toString());
+        TaskList synced = new TaskList(elsewhere.load());
+        synced.add(new Todo("added elsewhere"));
+        elsewhere.save(synced.getAllTasks());
+        assertEquals(local.getId(), synced.get(1).getId());
+        Files.copy(otherFile, Paths.get(testFilePath), StandardCopyOption.REPLACE_EXISTING);
+        watcher.fileChanged();
+
+        assertEquals(1, watcher.applyExternalChanges(tasks));
+        assertEquals(3, tasks.size());
+        assertSame(local, tasks.get(1));
+        assertEquals("added elsewhere", tasks.get(2).getDescription());
+        assertNotEquals(local.getId(), tasks.get(2).getId());
+
+        storage.saveChanges(tasks);
+        List<Task> loaded = new Storage(testFilePath).load();
+        assertEquals(3, loaded.size());
+        assertEquals("added here", loaded.get(1).getDescription());
+        assertEquals("added elsewhere", loaded.get(2).getDescription());
+    }
+
+    @Test
+    void fileWatcher_folderNotThereYet_seesLaterWrites(@TempDir Path tempDir) throws InterruptedException {
+        String path = tempDir.resolve("data").resolve("tasks.txt").toString();
+        Storage fresh = new Storage(path);
+        TaskList tasks = new TaskList(fresh.load());
+        try (TaskFileWatcher watcher = new TaskFileWatcher(fresh)) {
+            watcher.start();
+
+            TaskList synced = new TaskList();
+            synced.add(new Todo("written elsewhere"));
+            new Storage(path).save(synced.getAllTasks());
+            for (int i = 0; i < 500 && !watcher.hasPendingChanges(); i++) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(watcher.hasPendingChanges());
+            assertEquals(1, watcher.applyExternalChanges(tasks));
+            assertEquals("written elsewhere", tasks.get(0).getDescription());
+        }
+    }
+}
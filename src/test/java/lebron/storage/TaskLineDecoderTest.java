@@ -0,0 +1,77 @@
+package lebron.storage;
+
+import lebron.task.Task;
+import lebron.task.Deadline;
+import lebron.task.Event;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+
+class TaskLineDecoderTest {
+
+    @Test
+    void decode_todo_readsDescriptionAndDoneFlag() {
+        Task task = TaskLineDecoder.decode("T | 1 | read book");
+        assertEquals("[T][X] read book", task.toString());
+    }
+
+    @Test
+    void decode_deadlineAndEvent_readDates() {
+        Deadline deadline = (Deadline) TaskLineDecoder.decode("D | 0 | submit | 2024-12-25T14:00:00");
+        assertEquals(LocalDateTime.of(2024, 12, 25, 14, 0), deadline.getBy());
+        assertFalse(deadline.isDone());
+
+        Event event = (Event) TaskLineDecoder.decode("E | 1 | meeting | 2024-12-20T14:00 | 2024-12-20T16:30:15");
+        assertEquals(LocalDateTime.of(2024, 12, 20, 14, 0), event.getFrom());
+        assertEquals(LocalDateTime.of(2024, 12, 20, 16, 30, 15), event.getTo());
+        assertTrue(event.isDone());
+    }
+
+    @Test
+    void decode_fractionalSeconds_fallsBackToIsoParser() {
+        Deadline deadline = (Deadline) TaskLineDecoder.decode("D | 0 | submit | 2024-12-25T14:00:00.5");
+        assertEquals(500_000_000, deadline.getBy().getNano());
+    }
+
+    @Test
+    void decode_insideLargerBuffer_onlyReadsGivenRange() {
+        String buffer = "T | 0 | first\nT | 1 | second\n";
+        Task task = TaskLineDecoder.decode(buffer, 14, 28);
+        assertEquals("second", task.getDescription());
+        assertTrue(task.isDone());
+    }
+
+    @Test
+    void decode_malformedLines_returnNull() {
+        assertNull(TaskLineDecoder.decode(""));
+        assertNull(TaskLineDecoder.decode("garbage"));
+        assertNull(TaskLineDecoder.decode("T | 0"));
+        assertNull(TaskLineDecoder.decode("T | 0 | "));
+        assertNull(TaskLineDecoder.decode("X | 0 | unknown type"));
+        assertNull(TaskLineDecoder.decode("TT | 0 | long type"));
+        assertNull(TaskLineDecoder.decode("D | 0 | no date"));
+        assertNull(TaskLineDecoder.decode("D | 0 | bad date | 2024-13-45T14:00:00"));
+        assertNull(TaskLineDecoder.decode("E | 0 | one date | 2024-12-20T14:00:00"));
+    }
+
+    @Test
+    void decode_matchesSplitBasedParsing() {
+        String[] lines = {
+            "T | 0 | read book",
+            "T | 2 | odd done flag",
+            "T | 0 | pipe|without spaces",
+            "T | 0 | extra | fields | ignored",
+            "T | 0 | trailing pipe |",
+            "D | 1 | submit | 2024-12-25T14:00:00 | ",
+            "E | 0 | meeting | 2024-12-20T14:00:00 | 2024-12-20T16:00:00",
+        };
+        for (String line : lines) {
+            String[] parts = line.split(" \\| ");
+            Task task = TaskLineDecoder.decode(line);
+            assertNotNull(task, line);
+            assertEquals(parts[2], task.getDescription());
+            assertEquals(parts[1].equals("1"), task.isDone());
+        }
+    }
+}